@@ -0,0 +1,83 @@
+package txtai.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import txtai.Embeddings;
+import txtai.Embeddings.Document;
+import txtai.Transport;
+
+/**
+ * Benchmarks serialization of large add document lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddBenchmark {
+    @Param({"1000", "10000"})
+    public int documents;
+
+    private StandIn server;
+    private Embeddings embeddings;
+    private List<Document> batch;
+
+    @Setup
+    public void setup() throws IOException {
+        this.server = new StandIn();
+        this.embeddings = new Embeddings(this.server.url());
+
+        this.batch = new ArrayList<>();
+        for (int i = 0; i < this.documents; i++) {
+            this.batch.add(new Document(String.valueOf(i), "Document " + i + " text used to measure request serialization overhead"));
+        }
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        this.server.close();
+    }
+
+    @Benchmark
+    public void add() throws IOException {
+        this.embeddings.add(this.batch);
+    }
+
+    @Benchmark
+    public void serialize() {
+        Transport.gson().toJson(this.batch, new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) {
+                // Discard
+            }
+
+            @Override
+            public void flush() {
+                // Nothing to flush
+            }
+
+            @Override
+            public void close() {
+                // Nothing to close
+            }
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package txtai.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import okhttp3.OkHttpClient;
+
+import txtai.API;
+import txtai.Embeddings;
+import txtai.Labels;
+
+/**
+ * Benchmarks client construction cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientBenchmark {
+    private StandIn server;
+
+    @Setup
+    public void setup() throws IOException {
+        this.server = new StandIn();
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        this.server.close();
+    }
+
+    @Benchmark
+    public Embeddings embeddings() {
+        return new Embeddings(this.server.url());
+    }
+
+    @Benchmark
+    public Labels labels() {
+        return new Labels(this.server.url(), "token");
+    }
+
+    @Benchmark
+    public OkHttpClient client() {
+        return API.client("token");
+    }
+}
@@ -0,0 +1,91 @@
+package txtai.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import okio.Buffer;
+import okio.ByteString;
+
+import txtai.Codec;
+import txtai.Embeddings;
+
+/**
+ * Benchmarks vector codecs. Measures raw decode throughput and end-to-end vectors calls with content negotiation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+    @Param({"json", "binary", "base64"})
+    public String codec;
+
+    @Param({"256"})
+    public int rows;
+
+    @Param({"384"})
+    public int dimensions;
+
+    private Codec selected;
+    private ByteString encoded;
+
+    private StandIn server;
+    private Embeddings embeddings;
+    private List<String> texts;
+
+    @Setup
+    public void setup() throws IOException {
+        this.selected = "binary".equals(this.codec) ? Codec.BINARY : "base64".equals(this.codec) ? Codec.BASE64 : Codec.JSON;
+
+        // Encoded payload for decode benchmark
+        float[][] vectors = StandIn.vectors(this.rows, this.dimensions);
+        Buffer buffer = new Buffer();
+        this.selected.encode(vectors, buffer);
+        this.encoded = buffer.readByteString();
+
+        // Stand-in serves JSON by default and the selected codec on request
+        this.server = new StandIn()
+            .respond("batchtransform", StandIn.batchtransform(this.rows, this.dimensions))
+            .respond("batchtransform", this.selected, vectors);
+
+        this.embeddings = new Embeddings(this.server.url());
+        this.embeddings.setCodec(this.selected);
+
+        this.texts = new ArrayList<>();
+        for (int i = 0; i < this.rows; i++) {
+            this.texts.add("text " + i);
+        }
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        this.server.close();
+    }
+
+    @Benchmark
+    public float[][] decode() throws IOException {
+        return this.selected.decode(new Buffer().write(this.encoded));
+    }
+
+    @Benchmark
+    public float[][] vectors() throws IOException {
+        return this.embeddings.vectors(this.texts);
+    }
+}
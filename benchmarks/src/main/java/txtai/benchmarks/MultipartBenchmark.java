@@ -0,0 +1,77 @@
+package txtai.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import txtai.Embeddings;
+
+/**
+ * Benchmarks multipart request building and upload for addobject and addimage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultipartBenchmark {
+    @Param({"100"})
+    public int objects;
+
+    @Param({"16384"})
+    public int bytes;
+
+    private StandIn server;
+    private Embeddings embeddings;
+    private List<byte[]> data;
+    private List<String> uids;
+
+    @Setup
+    public void setup() throws IOException {
+        this.server = new StandIn();
+        this.embeddings = new Embeddings(this.server.url());
+
+        Random random = new Random(0);
+
+        this.data = new ArrayList<>();
+        this.uids = new ArrayList<>();
+        for (int i = 0; i < this.objects; i++) {
+            byte[] object = new byte[this.bytes];
+            random.nextBytes(object);
+
+            this.data.add(object);
+            this.uids.add(String.valueOf(i));
+        }
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        this.server.close();
+    }
+
+    @Benchmark
+    public void addobject() throws IOException {
+        this.embeddings.addobject(this.data, this.uids, null);
+    }
+
+    @Benchmark
+    public void addimage() throws IOException {
+        this.embeddings.addimage(this.data, this.uids, "image");
+    }
+}
@@ -0,0 +1,83 @@
+package txtai.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import txtai.Embeddings;
+import txtai.Embeddings.SearchResult;
+import txtai.SearchResults;
+
+/**
+ * Benchmarks search and batchsearch response decoding, into object lists and columnar result sets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({"10", "100"})
+    public int limit;
+
+    @Param({"32"})
+    public int queries;
+
+    private StandIn server;
+    private Embeddings embeddings;
+    private List<String> batch;
+
+    @Setup
+    public void setup() throws IOException {
+        this.server = new StandIn()
+            .respond("search", StandIn.search(this.limit))
+            .respond("batchsearch", StandIn.batchsearch(this.queries, this.limit));
+
+        this.embeddings = new Embeddings(this.server.url());
+
+        this.batch = new ArrayList<>();
+        for (int i = 0; i < this.queries; i++) {
+            this.batch.add("query " + i);
+        }
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        this.server.close();
+    }
+
+    @Benchmark
+    public List<SearchResult> search() throws IOException {
+        return this.embeddings.search("query", this.limit, null, null);
+    }
+
+    @Benchmark
+    public List<List<SearchResult>> batchsearch() throws IOException {
+        return this.embeddings.batchsearch(this.batch, this.limit, null, null);
+    }
+
+    @Benchmark
+    public SearchResults searchset() throws IOException {
+        return this.embeddings.searchset("query", this.limit, null, null);
+    }
+
+    @Benchmark
+    public List<SearchResults> batchsearchset() throws IOException {
+        return this.embeddings.batchsearchset(this.batch, this.limit, null, null);
+    }
+}
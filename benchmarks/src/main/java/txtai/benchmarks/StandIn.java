@@ -0,0 +1,249 @@
+package txtai.benchmarks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import okio.Buffer;
+
+import txtai.Codec;
+
+/**
+ * In-process stand-in for a txtai API. Serves canned responses in txtai's JSON format, so benchmarks measure
+ * client overhead instead of model inference.
+ */
+public class StandIn implements Closeable {
+    private static final Gson GSON = new Gson();
+
+    private final MockWebServer server;
+    private final Map<String, MockResponse> responses;
+
+    /**
+     * Starts a new stand-in server.
+     */
+    public StandIn() throws IOException {
+        this.responses = new ConcurrentHashMap<>();
+        this.server = new MockWebServer();
+
+        // Request bodies are consumed but not retained
+        this.server.setBodyLimit(0);
+        this.server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                // Drop recorded requests to keep memory flat over long runs
+                while (StandIn.this.server.takeRequest(0, TimeUnit.NANOSECONDS) != null) {
+                    // Discard
+                }
+
+                String path = request.getPath().substring(1);
+                int query = path.indexOf('?');
+                if (query != -1) {
+                    path = path.substring(0, query);
+                }
+
+                // Content negotiation, serve an alternate encoding when the client accepts it
+                String accept = request.getHeader("Accept");
+                if (accept != null) {
+                    for (String type : accept.split(",")) {
+                        MockResponse response = StandIn.this.responses.get(path + "\n" + type.split(";")[0].trim());
+                        if (response != null) {
+                            return response;
+                        }
+                    }
+                }
+
+                MockResponse response = StandIn.this.responses.get(path);
+                return response != null ? response : new MockResponse().setResponseCode(200);
+            }
+        });
+
+        this.server.start();
+    }
+
+    /**
+     * Base url of this server.
+     *
+     * @return url
+     */
+    public String url() {
+        return this.server.url("/").toString();
+    }
+
+    /**
+     * Sets the response body for an endpoint.
+     *
+     * @param endpoint endpoint name, for example "search"
+     * @param json response body
+     * @return this server
+     */
+    public StandIn respond(String endpoint, String json) {
+        this.responses.put(endpoint, new MockResponse().setHeader("Content-Type", "application/json").setBody(json));
+        return this;
+    }
+
+    /**
+     * Sets a custom response for an endpoint.
+     *
+     * @param endpoint endpoint name
+     * @param response response
+     * @return this server
+     */
+    public StandIn respond(String endpoint, MockResponse response) {
+        this.responses.put(endpoint, response);
+        return this;
+    }
+
+    /**
+     * Sets an alternate encoding of the response for an endpoint. It's served to clients that list the
+     * codec type in their Accept header.
+     *
+     * @param endpoint endpoint name
+     * @param codec vector codec
+     * @param vectors response vectors
+     * @return this server
+     */
+    public StandIn respond(String endpoint, Codec codec, float[][] vectors) throws IOException {
+        Buffer body = new Buffer();
+        codec.encode(vectors, body);
+
+        this.responses.put(endpoint + "\n" + codec.type(), new MockResponse().setHeader("Content-Type", codec.type()).setBody(body));
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.server.shutdown();
+    }
+
+    /**
+     * Builds a search response.
+     *
+     * @param limit number of results
+     * @return JSON
+     */
+    public static String search(int limit) {
+        return GSON.toJson(StandIn.results(limit));
+    }
+
+    /**
+     * Builds a batchsearch response.
+     *
+     * @param queries number of queries
+     * @param limit number of results per query
+     * @return JSON
+     */
+    public static String batchsearch(int queries, int limit) {
+        List<Object> batch = new ArrayList<>();
+        for (int i = 0; i < queries; i++) {
+            batch.add(StandIn.results(limit));
+        }
+
+        return GSON.toJson(batch);
+    }
+
+    /**
+     * Builds a transform response.
+     *
+     * @param dimensions vector dimensions
+     * @return JSON
+     */
+    public static String transform(int dimensions) {
+        return GSON.toJson(StandIn.vector(new Random(0), dimensions));
+    }
+
+    /**
+     * Builds a batchtransform response.
+     *
+     * @param rows number of vectors
+     * @param dimensions vector dimensions
+     * @return JSON
+     */
+    public static String batchtransform(int rows, int dimensions) {
+        Random random = new Random(0);
+
+        List<double[]> vectors = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            vectors.add(StandIn.vector(random, dimensions));
+        }
+
+        return GSON.toJson(vectors);
+    }
+
+    /**
+     * Builds a matrix of random vectors, the same values as {@link #batchtransform(int, int)}.
+     *
+     * @param rows number of vectors
+     * @param dimensions vector dimensions
+     * @return vectors
+     */
+    public static float[][] vectors(int rows, int dimensions) {
+        Random random = new Random(0);
+
+        float[][] vectors = new float[rows][];
+        for (int i = 0; i < rows; i++) {
+            double[] vector = StandIn.vector(random, dimensions);
+
+            vectors[i] = new float[dimensions];
+            for (int j = 0; j < dimensions; j++) {
+                vectors[i][j] = (float)vector[j];
+            }
+        }
+
+        return vectors;
+    }
+
+    /**
+     * Builds a list of {id: value, score: value} results.
+     *
+     * @param limit number of results
+     * @return results
+     */
+    private static List<Map<String, Object>> results(int limit) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int i = 0; i < limit; i++) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("id", String.valueOf(1000 + i));
+            result.put("score", 0.9 - i * 0.001);
+            results.add(result);
+        }
+
+        return results;
+    }
+
+    /**
+     * Builds a normalized random vector with float32 precision, like a txtai embeddings model.
+     *
+     * @param random random generator
+     * @param dimensions vector dimensions
+     * @return vector
+     */
+    private static double[] vector(Random random, int dimensions) {
+        double[] vector = new double[dimensions];
+
+        double norm = 0;
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+
+        norm = Math.sqrt(norm);
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float)(vector[i] / norm);
+        }
+
+        return vector;
+    }
+}
@@ -0,0 +1,81 @@
+package txtai.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import txtai.Embeddings;
+
+/**
+ * Benchmarks batchtransform vector decoding, boxed lists versus primitive arrays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformBenchmark {
+    @Param({"256"})
+    public int rows;
+
+    @Param({"384", "1024"})
+    public int dimensions;
+
+    private StandIn server;
+    private Embeddings embeddings;
+    private List<String> texts;
+
+    @Setup
+    public void setup() throws IOException {
+        this.server = new StandIn()
+            .respond("transform", StandIn.transform(this.dimensions))
+            .respond("batchtransform", StandIn.batchtransform(this.rows, this.dimensions));
+
+        this.embeddings = new Embeddings(this.server.url());
+
+        this.texts = new ArrayList<>();
+        for (int i = 0; i < this.rows; i++) {
+            this.texts.add("text " + i);
+        }
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        this.server.close();
+    }
+
+    @Benchmark
+    public List<Double> transform() throws IOException {
+        return this.embeddings.transform("text");
+    }
+
+    @Benchmark
+    public float[] vector() throws IOException {
+        return this.embeddings.vector("text");
+    }
+
+    @Benchmark
+    public List<List<Double>> batchtransform() throws IOException {
+        return this.embeddings.batchtransform(this.texts);
+    }
+
+    @Benchmark
+    public float[][] vectors() throws IOException {
+        return this.embeddings.vectors(this.texts);
+    }
+}
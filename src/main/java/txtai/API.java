@@ -1,14 +1,19 @@
 package txtai;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.Call;
+import retrofit2.Callback;
 
 /**
  * Interface to Retrofit library. Provides common functionality.
@@ -28,7 +33,7 @@ public class API {
     }
 
     /**
-     * Creates a new Retrofit API instance.
+     * Creates a new Retrofit API instance. Instances share the http transport managed by {@link Transport}.
      * 
      * @param url API url
      * @param token API token
@@ -40,27 +45,79 @@ public class API {
         url = url != null ? url : System.getenv("TXTAI_API_URL");
         token = token != null ? token : System.getenv("TXTAI_API_TOKEN");
 
-        // Configure API instance
-        Retrofit retrofit =
-            new Retrofit.Builder()
-                .baseUrl(url)
-                .client(API.client(token))
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
+        // Create and return API
+        return Transport.retrofit(url, token).create(type);
+    }
+
+    /**
+     * Creates a new Retrofit API instance with request body compression.
+     *
+     * @param url API url
+     * @param token API token
+     * @param compression request compression, can be null
+     * @param type service interface class
+     * @return instance of type
+     */
+    public static <T> T create(String url, String token, Compression compression, Class<T> type) {
+        // Default url and token to environment variables, if empty
+        url = url != null ? url : System.getenv("TXTAI_API_URL");
+        token = token != null ? token : System.getenv("TXTAI_API_TOKEN");
 
         // Create and return API
-        return retrofit.create(type);
+        return Transport.retrofit(url, token, compression).create(type);
+    }
+
+    /**
+     * Creates a new Retrofit API instance that load balances calls across replicas of the same API.
+     * See {@link Balancer}.
+     *
+     * @param urls API urls
+     * @param token API token
+     * @param type service interface class
+     * @return instance of type
+     */
+    public static <T> T balanced(List<String> urls, String token, Class<T> type) {
+        // Default token to environment variable, if empty
+        token = token != null ? token : System.getenv("TXTAI_API_TOKEN");
+
+        // Create and return API
+        return Transport.retrofit(urls, token).create(type);
     }
 
     /**
      * Builds a custom http client that raises an Exception when calls are not
-     * successful.
+     * successful. The client shares the connection pool and dispatcher of the {@link Transport} base client.
      * 
      * @param token API token
      * @return client instance
      */
     public static OkHttpClient client(String token) {
-        return new OkHttpClient.Builder()  
+        return client(token, null);
+    }
+
+    /**
+     * Builds a custom http client that raises an Exception when calls are not successful and
+     * routes calls through a load balancer.
+     *
+     * @param token API token
+     * @param balancer load balancer, can be null
+     * @return client instance
+     */
+    public static OkHttpClient client(String token, Balancer balancer) {
+        return client(token, balancer, null);
+    }
+
+    /**
+     * Builds a custom http client that raises an Exception when calls are not successful,
+     * routes calls through a load balancer and compresses request bodies.
+     *
+     * @param token API token
+     * @param balancer load balancer, can be null
+     * @param compression request compression, can be null
+     * @return client instance
+     */
+    public static OkHttpClient client(String token, Balancer balancer, Compression compression) {
+        OkHttpClient.Builder builder = Transport.shared().newBuilder()
             .addInterceptor(new Interceptor() {
                 @Override
                 public Response intercept(Chain chain) throws IOException {
@@ -79,7 +136,79 @@ public class API {
 
                     return response;
                 }
-             })
-            .build();
+             });
+
+        // Balancer runs inside the error check, so it sees 5xx responses
+        if (balancer != null) {
+            builder.addInterceptor(balancer);
+        }
+
+        if (compression != null) {
+            builder.addInterceptor(compression);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Runs a call asynchronously. The returned future completes with the response body. Cancelling
+     * the future cancels the underlying call.
+     *
+     * @param call API call
+     * @return future response body
+     */
+    public static <T> CompletableFuture<T> async(Call<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<T>() {
+            @Override
+            public boolean cancel(boolean interrupt) {
+                call.cancel();
+                return super.cancel(interrupt);
+            }
+        };
+
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, retrofit2.Response<T> response) {
+                future.complete(response.body());
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Waits for a future and returns its result. Failures are rethrown as IOExceptions.
+     *
+     * @param future future result
+     * @return result
+     */
+    public static <T> T get(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        }
+        catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof UncheckedIOException) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+
+            throw new IOException(cause);
+        }
     }
 }
@@ -0,0 +1,209 @@
+package txtai;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Client-side load balancer for replicated txtai APIs. Requests are built against the first url and rewritten
+ * to a node picked with power-of-two-choices: two random healthy nodes are sampled and the one with fewer
+ * outstanding requests wins.
+ *
+ * Health checks are passive. A node that fails consecutive calls (connection errors or 5xx responses) is
+ * ejected for a period and then gets traffic again. Failed calls are not retried on other nodes.
+ */
+public class Balancer implements Interceptor {
+    private final HttpUrl base;
+    private final List<Node> nodes;
+    private final int failures;
+    private final long ejection;
+
+    /**
+     * Balanced node.
+     */
+    private static class Node {
+        final HttpUrl url;
+        final AtomicInteger outstanding = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        // Ejection deadline, only meaningful while ejected is set. System.nanoTime() has an arbitrary origin
+        // and can be negative, so there's no deadline value that can stand for "never ejected".
+        volatile long until;
+        volatile boolean ejected;
+
+        Node(HttpUrl url) {
+            this.url = url;
+        }
+
+        boolean healthy(long now) {
+            return !this.ejected || now - this.until >= 0;
+        }
+    }
+
+    /**
+     * Creates a Balancer that ejects nodes for 10 seconds after 3 consecutive failures.
+     *
+     * @param urls API urls
+     */
+    public Balancer(List<String> urls) {
+        this(urls, 3, 10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates a Balancer.
+     *
+     * @param urls API urls
+     * @param failures consecutive failures before a node is ejected
+     * @param ejection how long an ejected node is skipped
+     * @param unit ejection time unit
+     */
+    public Balancer(List<String> urls, int failures, long ejection, TimeUnit unit) {
+        if (urls == null || urls.isEmpty()) {
+            throw new IllegalArgumentException("At least one url is required");
+        }
+
+        this.nodes = new ArrayList<>();
+        for (String url : urls) {
+            this.nodes.add(new Node(HttpUrl.get(url)));
+        }
+
+        this.base = this.nodes.get(0).url;
+        this.failures = failures;
+        this.ejection = unit.toNanos(ejection);
+    }
+
+    /**
+     * Base url requests are built against.
+     *
+     * @return base url
+     */
+    public String url() {
+        return this.base.toString();
+    }
+
+    /**
+     * Number of currently healthy nodes.
+     *
+     * @return healthy node count
+     */
+    public int healthy() {
+        long now = System.nanoTime();
+
+        int count = 0;
+        for (Node node : this.nodes) {
+            count += node.healthy(now) ? 1 : 0;
+        }
+
+        return count;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Node node = this.select();
+        Request request = chain.request();
+
+        node.outstanding.incrementAndGet();
+        try {
+            Response response = chain.proceed(request.newBuilder().url(this.rewrite(request.url(), node.url)).build());
+            if (response.code() >= 500) {
+                this.failure(node);
+            }
+            else {
+                node.failures.set(0);
+            }
+
+            return response;
+        }
+        catch (IOException | RuntimeException ex) {
+            // Cancelled calls say nothing about node health
+            if (!chain.call().isCanceled()) {
+                this.failure(node);
+            }
+
+            throw ex;
+        }
+        finally {
+            node.outstanding.decrementAndGet();
+        }
+    }
+
+    /**
+     * Picks a node with power-of-two-choices. Falls back to all nodes when every node is ejected.
+     *
+     * @return node
+     */
+    private Node select() {
+        if (this.nodes.size() == 1) {
+            return this.nodes.get(0);
+        }
+
+        long now = System.nanoTime();
+        List<Node> candidates = new ArrayList<>(this.nodes.size());
+        for (Node node : this.nodes) {
+            if (node.healthy(now)) {
+                candidates.add(node);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            candidates = this.nodes;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Node first = candidates.get(random.nextInt(candidates.size()));
+        if (candidates.size() == 1) {
+            return first;
+        }
+
+        // Sample a second distinct node
+        int index = random.nextInt(candidates.size() - 1);
+        Node second = candidates.get(index >= candidates.indexOf(first) ? index + 1 : index);
+
+        return second.outstanding.get() < first.outstanding.get() ? second : first;
+    }
+
+    /**
+     * Records a failed call and ejects the node once it reaches the failure threshold.
+     *
+     * @param node node
+     */
+    private void failure(Node node) {
+        if (node.failures.incrementAndGet() >= this.failures) {
+            node.failures.set(0);
+            node.until = System.nanoTime() + this.ejection;
+            node.ejected = true;
+        }
+    }
+
+    /**
+     * Rewrites a url built against the base url to target node.
+     *
+     * @param url request url
+     * @param node node url
+     * @return rewritten url
+     */
+    private HttpUrl rewrite(HttpUrl url, HttpUrl node) {
+        if (node == this.base) {
+            return url;
+        }
+
+        // Path relative to the base url
+        String path = url.encodedPath();
+        String relative = path.startsWith(this.base.encodedPath()) ? path.substring(this.base.encodedPath().length()) : path.substring(1);
+        String prefix = node.encodedPath().endsWith("/") ? node.encodedPath() : node.encodedPath() + "/";
+
+        return url.newBuilder()
+            .scheme(node.scheme())
+            .host(node.host())
+            .port(node.port())
+            .encodedPath(prefix + relative)
+            .build();
+    }
+}
@@ -0,0 +1,291 @@
+package txtai;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Splits large batch inputs into chunks and runs the chunks concurrently with a bounded parallelism limit.
+ * Results are reassembled in input order.
+ */
+public class Batching {
+    // Maximum number of inputs per request
+    protected final int size;
+
+    // Maximum number of requests in flight
+    protected final int parallelism;
+
+    /**
+     * Creates a Batching instance.
+     *
+     * @param size maximum number of inputs per request
+     * @param parallelism maximum number of concurrent requests
+     */
+    public Batching(int size, int parallelism) {
+        if (size < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("size and parallelism must be positive");
+        }
+
+        this.size = size;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs call over inputs. Inputs are partitioned into chunks, each chunk is sent with call and the
+     * results are merged back in input order. Cancelling the returned future cancels all in-flight chunks.
+     *
+     * @param inputs list of inputs
+     * @param call function that runs a single chunk
+     * @return future list of results, one per input
+     */
+    public <T, R> CompletableFuture<List<R>> apply(List<T> inputs, Function<List<T>, CompletableFuture<List<R>>> call) {
+        List<int[]> partitions = this.partition(inputs);
+
+        // Nothing to split, run as a single request
+        if (partitions.size() <= 1) {
+            return call.apply(inputs);
+        }
+
+        return new Run<T, R>(inputs, partitions, call, true).start();
+    }
+
+    /**
+     * Runs call over inputs without assuming one result per input. Inputs are partitioned into chunks and
+     * chunk results are concatenated in chunk order. Use for calls that can expand or filter elements, such
+     * as workflows. Policies that reorder inputs, such as {@link LengthBatching}, produce non-contiguous
+     * chunks. Their results are put back in input order, which requires one result per input, otherwise the
+     * call fails with an IOException. Cancelling the returned future cancels all in-flight chunks.
+     *
+     * @param inputs list of inputs
+     * @param call function that runs a single chunk
+     * @return future list of results from all chunks
+     */
+    public <T, R> CompletableFuture<List<R>> concat(List<T> inputs, Function<List<T>, CompletableFuture<List<R>>> call) {
+        List<int[]> partitions = this.partition(inputs);
+
+        // Nothing to split, run as a single request
+        if (partitions.size() <= 1) {
+            return call.apply(inputs);
+        }
+
+        // Contiguous chunks are concatenated, reordered chunks are merged back by input index
+        return new Run<T, R>(inputs, partitions, call, !Batching.contiguous(partitions)).start();
+    }
+
+    /**
+     * Partitions inputs into chunks. Each chunk is an array of input indices. Default implementation
+     * splits inputs into contiguous chunks of up to size elements.
+     *
+     * @param inputs list of inputs
+     * @return list of chunks
+     */
+    protected List<int[]> partition(List<?> inputs) {
+        List<int[]> partitions = new ArrayList<>();
+        for (int start = 0; start < inputs.size(); start += this.size) {
+            int[] indices = new int[Math.min(this.size, inputs.size() - start)];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = start + i;
+            }
+
+            partitions.add(indices);
+        }
+
+        return partitions;
+    }
+
+    /**
+     * Checks if partitions cover inputs in order, so that concatenating chunk results keeps input order.
+     *
+     * @param partitions list of chunks
+     * @return true if partitions are contiguous and in input order
+     */
+    private static boolean contiguous(List<int[]> partitions) {
+        int next = 0;
+        for (int[] indices : partitions) {
+            for (int index : indices) {
+                if (index != next++) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Single execution of a partitioned batch.
+     */
+    private class Run<T, R> {
+        private final List<T> inputs;
+        private final List<int[]> partitions;
+        private final Function<List<T>, CompletableFuture<List<R>>> call;
+
+        // True if each chunk must return one result per input
+        private final boolean exact;
+
+        // Results by input index when exact, otherwise result lists by chunk
+        private final Object[] outputs;
+        private final AtomicInteger next;
+        private final AtomicInteger remaining;
+
+        // Launch requests not yet handled, only the thread that takes it from 0 runs launches
+        private final AtomicInteger launches;
+        private final Map<Integer, CompletableFuture<List<R>>> running;
+        private final CompletableFuture<List<R>> result;
+
+        Run(List<T> inputs, List<int[]> partitions, Function<List<T>, CompletableFuture<List<R>>> call, boolean exact) {
+            this.inputs = inputs;
+            this.partitions = partitions;
+            this.call = call;
+            this.exact = exact;
+
+            this.outputs = new Object[exact ? inputs.size() : partitions.size()];
+            this.next = new AtomicInteger();
+            this.remaining = new AtomicInteger(partitions.size());
+            this.launches = new AtomicInteger();
+            this.running = new ConcurrentHashMap<>();
+
+            // Cancelling the result cancels in-flight chunks
+            this.result = new CompletableFuture<List<R>>() {
+                @Override
+                public boolean cancel(boolean interrupt) {
+                    boolean cancelled = super.cancel(interrupt);
+                    Run.this.stop();
+                    return cancelled;
+                }
+            };
+        }
+
+        /**
+         * Starts up to parallelism chunks.
+         *
+         * @return future results
+         */
+        CompletableFuture<List<R>> start() {
+            for (int i = 0; i < Math.min(parallelism, this.partitions.size()); i++) {
+                this.launch();
+            }
+
+            return this.result;
+        }
+
+        /**
+         * Requests a launch of the next pending chunk. Launches run in a loop on the first requesting thread,
+         * so chunks that complete immediately, such as cache hits or synchronous failures, don't recurse.
+         */
+        private void launch() {
+            if (this.launches.getAndIncrement() != 0) {
+                return;
+            }
+
+            do {
+                this.next();
+            }
+            while (this.launches.decrementAndGet() != 0);
+        }
+
+        /**
+         * Launches the next pending chunk, if any.
+         */
+        private void next() {
+            int partition = this.next.getAndIncrement();
+            if (partition >= this.partitions.size() || this.result.isDone()) {
+                return;
+            }
+
+            int[] indices = this.partitions.get(partition);
+            List<T> chunk = new ArrayList<>(indices.length);
+            for (int index : indices) {
+                chunk.add(this.inputs.get(index));
+            }
+
+            CompletableFuture<List<R>> future;
+            try {
+                future = this.call.apply(chunk);
+            }
+            catch (RuntimeException ex) {
+                this.fail(ex);
+                return;
+            }
+
+            this.running.put(partition, future);
+            future.whenComplete((outputs, error) -> {
+                this.running.remove(partition);
+
+                if (error != null) {
+                    this.fail(error);
+                }
+                else if (this.exact && (outputs == null || outputs.size() != indices.length)) {
+                    this.fail(new IOException("Expected " + indices.length + " results, received " +
+                                              (outputs != null ? outputs.size() : 0)));
+                }
+                else {
+                    // Copy chunk outputs into place
+                    if (this.exact) {
+                        for (int i = 0; i < indices.length; i++) {
+                            this.outputs[indices[i]] = outputs.get(i);
+                        }
+                    }
+                    else {
+                        this.outputs[partition] = outputs;
+                    }
+
+                    if (this.remaining.decrementAndGet() == 0) {
+                        this.complete();
+                    }
+                    else {
+                        this.launch();
+                    }
+                }
+            });
+        }
+
+        /**
+         * Completes result with merged outputs.
+         */
+        @SuppressWarnings("unchecked")
+        private void complete() {
+            if (this.exact) {
+                this.result.complete((List<R>)new ArrayList<>(Arrays.asList(this.outputs)));
+                return;
+            }
+
+            // Concatenate chunk results in chunk order
+            List<R> results = new ArrayList<>();
+            for (Object outputs : this.outputs) {
+                if (outputs != null) {
+                    results.addAll((List<R>)outputs);
+                }
+            }
+
+            this.result.complete(results);
+        }
+
+        /**
+         * Fails result and stops in-flight chunks.
+         *
+         * @param error error
+         */
+        private void fail(Throwable error) {
+            this.result.completeExceptionally(error instanceof CompletionException && error.getCause() != null ?
+                                              error.getCause() : error);
+            this.stop();
+        }
+
+        /**
+         * Cancels all in-flight chunks.
+         */
+        private void stop() {
+            for (CompletableFuture<List<R>> future : this.running.values()) {
+                future.cancel(true);
+            }
+        }
+    }
+}
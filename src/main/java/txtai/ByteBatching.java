@@ -0,0 +1,123 @@
+package txtai;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+
+/**
+ * Batching policy that splits inputs by total byte size. Used for uploads, where the number of inputs says
+ * little about the size of a request. Chunks are contiguous and hold at most bytes bytes and size inputs.
+ * An input larger than bytes is sent in a chunk of its own.
+ *
+ * Input sizes are measured for byte arrays, files, paths, request bodies and multipart parts. Arrays of
+ * these are measured as the sum of their elements. Inputs with an unknown size count as zero bytes.
+ */
+public class ByteBatching extends Batching {
+    // Maximum number of bytes per request
+    protected final long bytes;
+
+    /**
+     * Creates a ByteBatching instance.
+     *
+     * @param bytes maximum number of bytes per request
+     * @param size maximum number of inputs per request
+     * @param parallelism maximum number of concurrent requests
+     */
+    public ByteBatching(long bytes, int size, int parallelism) {
+        super(size, parallelism);
+
+        if (bytes < 1) {
+            throw new IllegalArgumentException("bytes must be positive");
+        }
+
+        this.bytes = bytes;
+    }
+
+    @Override
+    protected List<int[]> partition(List<?> inputs) {
+        List<int[]> partitions = new ArrayList<>();
+
+        int start = 0;
+        long total = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            long length = this.bytes(inputs.get(i));
+
+            // Close current chunk when this input doesn't fit
+            if (i > start && (total + length > this.bytes || i - start >= this.size)) {
+                partitions.add(ByteBatching.range(start, i));
+                start = i;
+                total = 0;
+            }
+
+            total += length;
+        }
+
+        if (start < inputs.size()) {
+            partitions.add(ByteBatching.range(start, inputs.size()));
+        }
+
+        return partitions;
+    }
+
+    /**
+     * Measures the size of an input.
+     *
+     * @param input input
+     * @return size in bytes, 0 if unknown
+     */
+    protected long bytes(Object input) {
+        try {
+            if (input instanceof byte[]) {
+                return ((byte[])input).length;
+            }
+            if (input instanceof File) {
+                return ((File)input).length();
+            }
+            if (input instanceof Path) {
+                return Files.size((Path)input);
+            }
+            if (input instanceof RequestBody) {
+                return Math.max(0, ((RequestBody)input).contentLength());
+            }
+            if (input instanceof MultipartBody.Part) {
+                return Math.max(0, ((MultipartBody.Part)input).body().contentLength());
+            }
+            if (input instanceof Object[]) {
+                long total = 0;
+                for (Object element : (Object[])input) {
+                    total += this.bytes(element);
+                }
+
+                return total;
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Builds an array of indices from start (inclusive) to end (exclusive).
+     *
+     * @param start start index
+     * @param end end index
+     * @return indices
+     */
+    private static int[] range(int start, int end) {
+        int[] indices = new int[end - start];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = start + i;
+        }
+
+        return indices;
+    }
+}
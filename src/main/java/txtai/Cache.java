@@ -0,0 +1,277 @@
+package txtai;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.google.gson.Gson;
+
+/**
+ * Response cache for deterministic pipeline calls. Entries are keyed on endpoint, input and canonicalized
+ * parameters. The cache is bounded by size (least recently used entries are evicted first) and optionally
+ * by time to live.
+ *
+ * Cached results are shared between callers and should be treated as read-only. A cache instance should
+ * only be used with clients connected to the same txtai API.
+ */
+public class Cache {
+    private static final Gson GSON = new Gson();
+
+    private final int size;
+    private final long ttl;
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    /**
+     * Cache entry.
+     */
+    private static class Entry {
+        final Object value;
+        final long expires;
+
+        Entry(Object value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * Creates a size bounded Cache without expiration.
+     *
+     * @param size maximum number of entries
+     */
+    public Cache(int size) {
+        this(size, 0, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates a Cache.
+     *
+     * @param size maximum number of entries
+     * @param ttl entry time to live, 0 disables expiration
+     * @param unit ttl time unit
+     */
+    public Cache(int size, long ttl, TimeUnit unit) {
+        this.size = size;
+        this.ttl = unit.toNanos(ttl);
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+
+        // Access ordered map for LRU eviction
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cache.Entry> eldest) {
+                return this.size() > Cache.this.size;
+            }
+        };
+    }
+
+    /**
+     * Runs a single input call through the cache. The loader is only called on a cache miss.
+     *
+     * @param endpoint endpoint name
+     * @param input input element
+     * @param params additional parameters that affect the result, can be null
+     * @param loader function that runs the call
+     * @return future result
+     */
+    public <T, R> CompletableFuture<R> apply(String endpoint, T input, Object params, Function<T, CompletableFuture<R>> loader) {
+        String key = Cache.key(endpoint, input, params);
+
+        R value = this.get(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+
+        return loader.apply(input).thenApply(result -> {
+            this.put(key, result);
+            return result;
+        });
+    }
+
+    /**
+     * Runs a batch call through the cache. Only inputs missing from the cache are passed to the loader and
+     * the results are merged back in input order.
+     *
+     * @param endpoint endpoint name
+     * @param inputs list of inputs
+     * @param params additional parameters that affect the results, can be null
+     * @param loader function that runs the call
+     * @return future list of results, one per input
+     */
+    public <T, R> CompletableFuture<List<R>> batch(String endpoint, List<T> inputs, Object params,
+                                                   Function<List<T>, CompletableFuture<List<R>>> loader) {
+        List<R> outputs = new ArrayList<>(inputs.size());
+        List<String> keys = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+        List<T> missing = new ArrayList<>();
+
+        for (int i = 0; i < inputs.size(); i++) {
+            String key = Cache.key(endpoint, inputs.get(i), params);
+            R value = this.get(key);
+
+            outputs.add(value);
+            if (value == null) {
+                keys.add(key);
+                indices.add(i);
+                missing.add(inputs.get(i));
+            }
+        }
+
+        // All inputs cached
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(outputs);
+        }
+
+        return loader.apply(missing).thenApply(results -> {
+            // Fail without caching partial results
+            if (results == null || results.size() != missing.size()) {
+                throw new CompletionException(new IOException("Expected " + missing.size() + " results, received " +
+                                                              (results != null ? results.size() : 0)));
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                this.put(keys.get(i), results.get(i));
+                outputs.set(indices.get(i), results.get(i));
+            }
+
+            return outputs;
+        });
+    }
+
+    /**
+     * Gets a cached value.
+     *
+     * @param key cache key
+     * @return value or null if not found or expired
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <R> R get(String key) {
+        Entry entry = this.entries.get(key);
+        if (entry != null && entry.expires != 0 && System.nanoTime() - entry.expires > 0) {
+            this.entries.remove(key);
+            entry = null;
+        }
+
+        if (entry == null) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+
+        this.hits.incrementAndGet();
+        return (R)entry.value;
+    }
+
+    /**
+     * Stores a value. Null values are not cached.
+     *
+     * @param key cache key
+     * @param value value
+     */
+    public synchronized void put(String key, Object value) {
+        if (value != null) {
+            this.entries.put(key, new Entry(value, this.ttl > 0 ? System.nanoTime() + this.ttl : 0));
+        }
+    }
+
+    /**
+     * Removes expired entries.
+     */
+    public synchronized void purge() {
+        long now = System.nanoTime();
+        for (Iterator<Entry> it = this.entries.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.expires != 0 && now - entry.expires > 0) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Number of entries in this cache.
+     *
+     * @return number of entries
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Number of cache hits.
+     *
+     * @return hits
+     */
+    public long hits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Number of cache misses.
+     *
+     * @return misses
+     */
+    public long misses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Builds a cache key from endpoint, input and parameters. Maps are sorted by key so that equivalent
+     * parameters always produce the same key.
+     *
+     * @param endpoint endpoint name
+     * @param input input element
+     * @param params additional parameters
+     * @return cache key
+     */
+    public static String key(String endpoint, Object input, Object params) {
+        return endpoint + "\n" + GSON.toJson(Arrays.asList(Cache.canonical(input), Cache.canonical(params)));
+    }
+
+    /**
+     * Canonicalizes a value for use in a cache key.
+     *
+     * @param value input value
+     * @return canonical value
+     */
+    private static Object canonical(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                sorted.put(String.valueOf(entry.getKey()), Cache.canonical(entry.getValue()));
+            }
+
+            return sorted;
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>();
+            for (Object element : (List<?>)value) {
+                list.add(Cache.canonical(element));
+            }
+
+            return list;
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,192 @@
+package txtai;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Micro-batching for single item calls. Concurrent calls made within a short window are collected into one
+ * batch request and the results are fanned back out to each caller. Calls are only merged when they share
+ * the same key, for example the same endpoint and parameters.
+ *
+ * Merged calls share a single request. Cancelling the future for one call doesn't cancel the batch.
+ *
+ * Each instance runs a timer thread. Call {@link #close()} when the instance is no longer needed.
+ */
+public class Coalescing implements Closeable {
+    private final int size;
+    private final long window;
+    private final ScheduledExecutorService timer;
+
+    // Open batches by key
+    private final Map<Object, Pending<?, ?>> pending;
+
+    // Set once closed, later calls are sent without waiting
+    private boolean closed;
+
+    /**
+     * Open batch.
+     */
+    private static class Pending<T, R> {
+        final Function<List<T>, CompletableFuture<List<R>>> call;
+        final List<T> inputs;
+        final List<CompletableFuture<R>> outputs;
+        ScheduledFuture<?> flush;
+
+        Pending(Function<List<T>, CompletableFuture<List<R>>> call) {
+            this.call = call;
+            this.inputs = new ArrayList<>();
+            this.outputs = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Creates a Coalescing instance.
+     *
+     * @param size maximum number of calls per batch, a full batch is sent immediately
+     * @param window maximum time to wait for more calls after the first call in a batch
+     * @param unit window time unit
+     */
+    public Coalescing(int size, long window, TimeUnit unit) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+
+        this.size = size;
+        this.window = unit.toNanos(window);
+        this.pending = new HashMap<>();
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "txtai-coalescing");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submits a single item call. The call joins the open batch for key or starts a new one. Keys should
+     * identify the client instance too, calls from different clients must never be merged.
+     *
+     * @param key batch key, calls are only merged with calls that have an equal key
+     * @param input input element
+     * @param call function that runs a batch request
+     * @return future result for input
+     */
+    @SuppressWarnings("unchecked")
+    public <T, R> CompletableFuture<R> submit(Object key, T input, Function<List<T>, CompletableFuture<List<R>>> call) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        Pending<T, R> full = null;
+
+        synchronized (this) {
+            Pending<T, R> batch = (Pending<T, R>)this.pending.get(key);
+            if (batch == null) {
+                batch = new Pending<>(call);
+                this.pending.put(key, batch);
+
+                if (this.size > 1 && !this.closed) {
+                    batch.flush = this.timer.schedule(() -> this.flush(key), this.window, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            batch.inputs.add(input);
+            batch.outputs.add(future);
+
+            // Batch is full or instance is closed, send now
+            if (batch.inputs.size() >= this.size || this.closed) {
+                this.pending.remove(key);
+                if (batch.flush != null) {
+                    batch.flush.cancel(false);
+                }
+
+                full = batch;
+            }
+        }
+
+        if (full != null) {
+            this.send(full);
+        }
+
+        return future;
+    }
+
+    /**
+     * Stops the timer thread and sends all open batches. Calls submitted after closing are sent immediately.
+     */
+    @Override
+    public void close() {
+        List<Pending<?, ?>> batches;
+        synchronized (this) {
+            this.closed = true;
+            batches = new ArrayList<>(this.pending.values());
+            this.pending.clear();
+        }
+
+        this.timer.shutdownNow();
+
+        for (Pending<?, ?> batch : batches) {
+            this.send(batch);
+        }
+    }
+
+    /**
+     * Sends the open batch for key, if any.
+     *
+     * @param key batch key
+     */
+    private void flush(Object key) {
+        Pending<?, ?> batch;
+        synchronized (this) {
+            batch = this.pending.remove(key);
+        }
+
+        if (batch != null) {
+            this.send(batch);
+        }
+    }
+
+    /**
+     * Sends a batch and completes each caller's future.
+     *
+     * @param batch batch
+     */
+    private <T, R> void send(Pending<T, R> batch) {
+        CompletableFuture<List<R>> result;
+        try {
+            result = batch.call.apply(batch.inputs);
+        }
+        catch (RuntimeException ex) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(ex);
+        }
+
+        result.whenComplete((outputs, error) -> {
+            if (error == null && (outputs == null || outputs.size() != batch.inputs.size())) {
+                error = new IOException("Expected " + batch.inputs.size() + " results, received " +
+                                        (outputs != null ? outputs.size() : 0));
+            }
+
+            if (error instanceof CompletionException && error.getCause() != null) {
+                error = error.getCause();
+            }
+
+            for (int i = 0; i < batch.outputs.size(); i++) {
+                if (error != null) {
+                    batch.outputs.get(i).completeExceptionally(error);
+                }
+                else {
+                    batch.outputs.get(i).complete(outputs.get(i));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,287 @@
+package txtai;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import okhttp3.MediaType;
+
+import okio.BufferedSink;
+import okio.BufferedSource;
+
+/**
+ * Wire encoding for embeddings vectors. Codecs are selected by content negotiation: requests advertise the
+ * preferred codec in the Accept header and responses are decoded with the codec matching their Content-Type,
+ * falling back to JSON.
+ */
+public interface Codec {
+    /**
+     * JSON arrays of numbers, txtai's default format.
+     */
+    Codec JSON = new JsonCodec();
+
+    /**
+     * Raw little-endian float32 matrix with an int32 rows, int32 dimensions header.
+     */
+    Codec BINARY = new BinaryCodec();
+
+    /**
+     * Maximum float32 payload size in bytes accepted when decoding.
+     */
+    long MAXIMUM = Integer.MAX_VALUE - 8;
+
+    /**
+     * JSON object with rows, dims and base64 encoded little-endian float32 data.
+     */
+    Codec BASE64 = new Base64Codec();
+
+    /**
+     * Media type of this codec.
+     *
+     * @return media type
+     */
+    String type();
+
+    /**
+     * Encodes vectors.
+     *
+     * @param vectors vectors, one row per vector
+     * @param sink output
+     */
+    void encode(float[][] vectors, BufferedSink sink) throws IOException;
+
+    /**
+     * Decodes vectors. A single vector is returned as a matrix with one row.
+     *
+     * @param source input
+     * @return vectors, one row per vector
+     */
+    float[][] decode(BufferedSource source) throws IOException;
+
+    /**
+     * Builds an Accept header that prefers codec and allows JSON.
+     *
+     * @param codec preferred codec
+     * @return Accept header value
+     */
+    static String accept(Codec codec) {
+        return codec == JSON ? JSON.type() : codec.type() + ", " + JSON.type() + ";q=0.5";
+    }
+
+    /**
+     * Validates a float32 matrix header read from a response. Headers are untrusted, so they're checked before
+     * anything is allocated.
+     *
+     * @param rows number of rows
+     * @param dimensions vector dimensions
+     * @return payload size in bytes
+     */
+    static long size(int rows, int dimensions) throws IOException {
+        long size = (long)rows * dimensions * 4;
+        if (rows < 0 || dimensions < 0 || (rows > 0 && dimensions == 0) || size > MAXIMUM) {
+            throw new IOException("Invalid float32 header: " + rows + " x " + dimensions);
+        }
+
+        return size;
+    }
+
+    /**
+     * Selects the codec for a response content type.
+     *
+     * @param codec preferred codec
+     * @param type response content type, can be null
+     * @return codec if it matches type, otherwise the JSON codec
+     */
+    static Codec select(Codec codec, MediaType type) {
+        if (type != null && codec.type().equals(type.type() + "/" + type.subtype())) {
+            return codec;
+        }
+
+        return JSON;
+    }
+
+    /**
+     * JSON codec.
+     */
+    class JsonCodec implements Codec {
+        @Override
+        public String type() {
+            return "application/json";
+        }
+
+        @Override
+        public void encode(float[][] vectors, BufferedSink sink) throws IOException {
+            JsonWriter writer = new JsonWriter(new OutputStreamWriter(sink.outputStream(), StandardCharsets.UTF_8));
+            new Vectors.MatrixAdapter().write(writer, vectors);
+            writer.flush();
+        }
+
+        @Override
+        public float[][] decode(BufferedSource source) throws IOException {
+            JsonReader reader = new JsonReader(new InputStreamReader(source.inputStream(), StandardCharsets.UTF_8));
+
+            // Single vector
+            reader.beginArray();
+            if (reader.peek() != JsonToken.BEGIN_ARRAY && reader.peek() != JsonToken.END_ARRAY) {
+                float[] vector = Vectors.elements(reader);
+                reader.endArray();
+
+                return new float[][] {vector};
+            }
+
+            // Matrix
+            List<float[]> rows = new ArrayList<>();
+            while (reader.hasNext()) {
+                rows.add(Vectors.read(reader));
+            }
+            reader.endArray();
+
+            return rows.toArray(new float[rows.size()][]);
+        }
+    }
+
+    /**
+     * Binary float32 codec.
+     */
+    class BinaryCodec implements Codec {
+        @Override
+        public String type() {
+            return "application/x-txtai-float32";
+        }
+
+        @Override
+        public void encode(float[][] vectors, BufferedSink sink) throws IOException {
+            int dimensions = vectors.length > 0 ? vectors[0].length : 0;
+
+            sink.writeIntLe(vectors.length);
+            sink.writeIntLe(dimensions);
+            sink.write(BinaryCodec.bytes(vectors, dimensions));
+        }
+
+        @Override
+        public float[][] decode(BufferedSource source) throws IOException {
+            int rows = source.readIntLe();
+            int dimensions = source.readIntLe();
+            Codec.size(rows, dimensions);
+
+            // Rows are allocated as data arrives, a truncated payload fails before a header sized allocation
+            List<float[]> vectors = new ArrayList<>(Math.min(rows, 1024));
+            byte[] bytes = null;
+            FloatBuffer buffer = null;
+
+            for (int i = 0; i < rows; i++) {
+                if (!source.request(dimensions * 4L)) {
+                    throw new EOFException("Expected " + rows + " x " + dimensions + " float32 payload, received " + i + " rows");
+                }
+
+                if (bytes == null) {
+                    bytes = new byte[dimensions * 4];
+                    buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+                }
+
+                float[] vector = new float[dimensions];
+                source.readFully(bytes);
+                buffer.rewind();
+                buffer.get(vector);
+                vectors.add(vector);
+            }
+
+            return vectors.toArray(new float[rows][]);
+        }
+
+        /**
+         * Packs vectors into little-endian float32 bytes.
+         *
+         * @param vectors vectors
+         * @param dimensions vector dimensions
+         * @return bytes
+         */
+        static byte[] bytes(float[][] vectors, int dimensions) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(vectors.length * dimensions * 4).order(ByteOrder.LITTLE_ENDIAN);
+            FloatBuffer floats = buffer.asFloatBuffer();
+            for (float[] vector : vectors) {
+                if (vector.length != dimensions) {
+                    throw new IOException("Vectors must have the same dimensions");
+                }
+
+                floats.put(vector);
+            }
+
+            return buffer.array();
+        }
+    }
+
+    /**
+     * Base64 float32 codec.
+     */
+    class Base64Codec implements Codec {
+        @Override
+        public String type() {
+            return "application/x-txtai-float32+json";
+        }
+
+        @Override
+        public void encode(float[][] vectors, BufferedSink sink) throws IOException {
+            int dimensions = vectors.length > 0 ? vectors[0].length : 0;
+
+            JsonWriter writer = new JsonWriter(new OutputStreamWriter(sink.outputStream(), StandardCharsets.UTF_8));
+            writer.beginObject();
+            writer.name("rows").value(vectors.length);
+            writer.name("dims").value(dimensions);
+            writer.name("data").value(Base64.getEncoder().encodeToString(BinaryCodec.bytes(vectors, dimensions)));
+            writer.endObject();
+            writer.flush();
+        }
+
+        @Override
+        public float[][] decode(BufferedSource source) throws IOException {
+            JsonReader reader = new JsonReader(new InputStreamReader(source.inputStream(), StandardCharsets.UTF_8));
+
+            int rows = -1, dimensions = -1;
+            byte[] data = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("rows".equals(name)) {
+                    rows = reader.nextInt();
+                }
+                else if ("dims".equals(name)) {
+                    dimensions = reader.nextInt();
+                }
+                else if ("data".equals(name)) {
+                    data = Base64.getDecoder().decode(reader.nextString());
+                }
+                else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (data == null || Codec.size(rows, dimensions) != data.length) {
+                throw new IOException("Invalid base64 float32 payload");
+            }
+
+            FloatBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+
+            float[][] vectors = new float[rows][dimensions];
+            for (float[] vector : vectors) {
+                buffer.get(vector);
+            }
+
+            return vectors;
+        }
+    }
+}
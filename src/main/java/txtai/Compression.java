@@ -0,0 +1,96 @@
+package txtai;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * Gzip compression for request bodies. JSON and text bodies at or above a size threshold are sent with
+ * Content-Encoding: gzip. Bodies that don't get smaller are sent as is. Compression ratios are reported to
+ * the installed {@link Metrics} registry.
+ */
+public class Compression implements Interceptor {
+    private final long threshold;
+
+    /**
+     * Creates a Compression instance that compresses bodies of 1KB or more.
+     */
+    public Compression() {
+        this(1024);
+    }
+
+    /**
+     * Creates a Compression instance.
+     *
+     * @param threshold minimum body size in bytes to compress
+     */
+    public Compression(long threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Minimum body size in bytes to compress.
+     *
+     * @return threshold
+     */
+    public long threshold() {
+        return this.threshold;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestBody body = request.body();
+
+        if (body == null || request.header("Content-Encoding") != null || !Compression.compressible(body.contentType()) ||
+            body.contentLength() < this.threshold) {
+            return chain.proceed(request);
+        }
+
+        // Compress body
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        ByteString original = buffer.readByteString();
+
+        try (BufferedSink sink = Okio.buffer(new GzipSink(buffer))) {
+            sink.write(original);
+        }
+
+        ByteString compressed = buffer.readByteString();
+
+        Metrics metrics = Transport.metrics();
+        if (metrics != null) {
+            metrics.compression(Instrumentation.endpoint(request.url()), original.size(), compressed.size());
+        }
+
+        // Send original bytes when compression doesn't help
+        if (compressed.size() >= original.size()) {
+            return chain.proceed(request.newBuilder().method(request.method(), RequestBody.create(body.contentType(), original)).build());
+        }
+
+        return chain.proceed(request.newBuilder()
+            .header("Content-Encoding", "gzip")
+            .method(request.method(), RequestBody.create(body.contentType(), compressed))
+            .build());
+    }
+
+    /**
+     * Checks if a content type is worth compressing.
+     *
+     * @param type content type
+     * @return true for JSON and text content
+     */
+    private static boolean compressible(MediaType type) {
+        return type != null && ("text".equals(type.type()) || type.subtype().contains("json"));
+    }
+}
@@ -0,0 +1,313 @@
+package txtai;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import txtai.API.IndexResult;
+
+/**
+ * Prepared similarity corpus. Texts are transformed once with an embeddings model and kept in a packed
+ * row-major float matrix. Each query then needs a single transform call, scoring runs locally with inner
+ * product, the same as Embeddings.similarity on the server.
+ *
+ * Only use a Corpus when similarity is computed with the embeddings model. Similarity pipelines backed by a
+ * different model, such as a cross-encoder, must still use {@link Similarity}.
+ *
+ * Corpus instances are immutable and thread-safe.
+ */
+public class Corpus {
+    // Rows scored per parallel task
+    private static final int BLOCK = 1024;
+
+    // Minimum matrix size (rows x dimensions) before scoring runs in parallel
+    private static final long PARALLEL = 1L << 18;
+
+    private final Embeddings embeddings;
+    private final float[] matrix;
+    private final int rows;
+    private final int dimensions;
+
+    /**
+     * Creates a Corpus by transforming texts with embeddings.
+     *
+     * @param embeddings embeddings instance, also used to transform queries
+     * @param texts list of text
+     */
+    public Corpus(Embeddings embeddings, List<String> texts) throws IOException {
+        this(embeddings, embeddings.vectors(texts));
+    }
+
+    /**
+     * Creates a Corpus from precomputed vectors.
+     *
+     * @param embeddings embeddings instance used to transform queries
+     * @param vectors vectors, one row per text
+     */
+    public Corpus(Embeddings embeddings, float[][] vectors) {
+        this.embeddings = embeddings;
+        this.rows = vectors.length;
+        this.dimensions = vectors.length > 0 ? vectors[0].length : 0;
+
+        // Pack into a single row-major matrix
+        this.matrix = new float[this.rows * this.dimensions];
+        for (int i = 0; i < this.rows; i++) {
+            if (vectors[i].length != this.dimensions) {
+                throw new IllegalArgumentException("All vectors must have " + this.dimensions + " dimensions");
+            }
+
+            System.arraycopy(vectors[i], 0, this.matrix, i * this.dimensions, this.dimensions);
+        }
+    }
+
+    /**
+     * Number of texts in this corpus.
+     *
+     * @return number of texts
+     */
+    public int size() {
+        return this.rows;
+    }
+
+    /**
+     * Vector dimensions.
+     *
+     * @return dimensions
+     */
+    public int dimensions() {
+        return this.dimensions;
+    }
+
+    /**
+     * Computes the similarity between query and all texts in this corpus. Returns a list of
+     * {id: value, score: value} sorted by highest score, where id is the index in texts.
+     *
+     * @param query query text
+     * @return list of {id: value, score: value}
+     */
+    public List<IndexResult> similarity(String query) throws IOException {
+        return this.similarity(query, this.rows);
+    }
+
+    /**
+     * Asynchronous version of {@link #similarity(String)}.
+     *
+     * @param query query text
+     * @return future list of {id: value, score: value}
+     */
+    public CompletableFuture<List<IndexResult>> similarityAsync(String query) {
+        return this.similarityAsync(query, this.rows);
+    }
+
+    /**
+     * Computes the similarity between query and all texts in this corpus and returns the top matches.
+     *
+     * @param query query text
+     * @param limit maximum results
+     * @return list of {id: value, score: value} sorted by highest score
+     */
+    public List<IndexResult> similarity(String query, int limit) throws IOException {
+        return this.similarity(this.embeddings.vector(query), limit);
+    }
+
+    /**
+     * Asynchronous version of {@link #similarity(String, int)}.
+     *
+     * @param query query text
+     * @param limit maximum results
+     * @return future list of {id: value, score: value} sorted by highest score
+     */
+    public CompletableFuture<List<IndexResult>> similarityAsync(String query, int limit) {
+        return this.embeddings.vectorAsync(query).thenApply(vector -> this.similarity(vector, limit));
+    }
+
+    /**
+     * Computes the similarity between each query and all texts in this corpus. Queries are transformed with
+     * a single batch call.
+     *
+     * @param queries queries text
+     * @param limit maximum results per query
+     * @return list of {id: value, score: value} per query
+     */
+    public List<List<IndexResult>> batchsimilarity(List<String> queries, int limit) throws IOException {
+        return this.batchsimilarity(this.embeddings.vectors(queries), limit);
+    }
+
+    /**
+     * Asynchronous version of {@link #batchsimilarity(List, int)}.
+     *
+     * @param queries queries text
+     * @param limit maximum results per query
+     * @return future list of {id: value, score: value} per query
+     */
+    public CompletableFuture<List<List<IndexResult>>> batchsimilarityAsync(List<String> queries, int limit) {
+        return this.embeddings.vectorsAsync(queries).thenApply(vectors -> this.batchsimilarity(vectors, limit));
+    }
+
+    /**
+     * Scores a query vector against all texts in this corpus and returns the top matches.
+     *
+     * @param query query vector
+     * @param limit maximum results
+     * @return list of {id: value, score: value} sorted by highest score
+     */
+    public List<IndexResult> similarity(float[] query, int limit) {
+        if (query.length != this.dimensions && this.rows > 0) {
+            throw new IllegalArgumentException("Query must have " + this.dimensions + " dimensions");
+        }
+
+        limit = Math.min(limit, this.rows);
+        if (limit < 1) {
+            return new ArrayList<>();
+        }
+
+        float[] scores = this.scores(query);
+        return limit < this.rows ? Corpus.top(scores, limit) : Corpus.sort(scores);
+    }
+
+    /**
+     * Scores each query vector against all texts in this corpus.
+     *
+     * @param queries query vectors
+     * @param limit maximum results per query
+     * @return list of {id: value, score: value} per query
+     */
+    public List<List<IndexResult>> batchsimilarity(float[][] queries, int limit) {
+        List<List<IndexResult>> results = new ArrayList<>(queries.length);
+        for (float[] query : queries) {
+            results.add(this.similarity(query, limit));
+        }
+
+        return results;
+    }
+
+    /**
+     * Computes the inner product of query with every row. Large matrices are scored in parallel blocks.
+     *
+     * @param query query vector
+     * @return scores, one per row
+     */
+    private float[] scores(float[] query) {
+        float[] scores = new float[this.rows];
+
+        IntStream blocks = IntStream.range(0, (this.rows + BLOCK - 1) / BLOCK);
+        if ((long)this.rows * this.dimensions >= PARALLEL) {
+            blocks = blocks.parallel();
+        }
+
+        blocks.forEach(block -> {
+            int end = Math.min(this.rows, (block + 1) * BLOCK);
+            for (int row = block * BLOCK; row < end; row++) {
+                scores[row] = Vectors.dot(query, this.matrix, row * this.dimensions);
+            }
+        });
+
+        return scores;
+    }
+
+    /**
+     * Selects the top scores with a bounded min-heap of row indices. Ties are ordered by lowest index.
+     *
+     * @param scores scores
+     * @param limit number of results, less than scores.length
+     * @return list of {id: value, score: value} sorted by highest score
+     */
+    private static List<IndexResult> top(float[] scores, int limit) {
+        int[] heap = new int[limit];
+        int size = 0;
+
+        for (int row = 0; row < scores.length; row++) {
+            if (size < limit) {
+                // Sift up
+                int i = size++;
+                while (i > 0 && Corpus.worse(scores, row, heap[(i - 1) >> 1])) {
+                    heap[i] = heap[(i - 1) >> 1];
+                    i = (i - 1) >> 1;
+                }
+                heap[i] = row;
+            }
+            else if (Corpus.worse(scores, heap[0], row)) {
+                // Replace root and sift down
+                int i = 0;
+                while (true) {
+                    int child = (i << 1) + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && Corpus.worse(scores, heap[child + 1], heap[child])) {
+                        child++;
+                    }
+                    if (!Corpus.worse(scores, heap[child], row)) {
+                        break;
+                    }
+
+                    heap[i] = heap[child];
+                    i = child;
+                }
+                heap[i] = row;
+            }
+        }
+
+        // Drain heap, worst first
+        IndexResult[] results = new IndexResult[size];
+        for (int n = size - 1; n >= 0; n--) {
+            int row = heap[0];
+            results[n] = new IndexResult(row, scores[row]);
+
+            int last = heap[n];
+            int i = 0;
+            while (true) {
+                int child = (i << 1) + 1;
+                if (child >= n) {
+                    break;
+                }
+                if (child + 1 < n && Corpus.worse(scores, heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!Corpus.worse(scores, heap[child], last)) {
+                    break;
+                }
+
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+        }
+
+        List<IndexResult> list = new ArrayList<>(size);
+        Collections.addAll(list, results);
+        return list;
+    }
+
+    /**
+     * Sorts all rows by score.
+     *
+     * @param scores scores
+     * @return list of {id: value, score: value} sorted by highest score
+     */
+    private static List<IndexResult> sort(float[] scores) {
+        List<IndexResult> results = new ArrayList<>(scores.length);
+        for (int row = 0; row < scores.length; row++) {
+            results.add(new IndexResult(row, scores[row]));
+        }
+
+        // Stable sort keeps lowest index first on ties
+        results.sort((a, b) -> Double.compare(b.score, a.score));
+        return results;
+    }
+
+    /**
+     * Checks if row a ranks below row b, by lower score then higher index.
+     *
+     * @param scores scores
+     * @param a first row
+     * @param b second row
+     * @return true if a ranks below b
+     */
+    private static boolean worse(float[] scores, int a, int b) {
+        return scores[a] < scores[b] || (scores[a] == scores[b] && a > b);
+    }
+}
@@ -0,0 +1,125 @@
+package txtai;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * In-batch deduplication. Each distinct input is sent once and the results are expanded back to the original
+ * input positions. Repeated inputs share the same result instance.
+ *
+ * The number of collapsed inputs is reported to the installed metrics registry, see
+ * {@link Metrics#deduplication(String, int, int)}.
+ */
+public class Deduplication {
+    private Deduplication() {
+        // Static methods only
+    }
+
+    /**
+     * Checks if a list of inputs has repeated elements.
+     *
+     * @param inputs list of inputs
+     * @return true if any input occurs more than once
+     */
+    public static boolean duplicates(List<?> inputs) {
+        if (inputs == null || inputs.size() < 2) {
+            return false;
+        }
+
+        Set<Object> seen = new HashSet<>(inputs.size() * 2);
+        for (Object input : inputs) {
+            if (!seen.add(input)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Runs call over the distinct inputs and expands the results to one per input. Inputs without duplicates
+     * are passed to call as is. Cancelling the returned future cancels the underlying call.
+     *
+     * @param endpoint endpoint name, used for metrics
+     * @param inputs list of inputs
+     * @param call function that runs a batch request
+     * @return future list of results, one per input
+     */
+    public static <T, R> CompletableFuture<List<R>> apply(String endpoint, List<T> inputs, Function<List<T>, CompletableFuture<List<R>>> call) {
+        if (inputs == null || inputs.size() < 2) {
+            return call.apply(inputs);
+        }
+
+        // Map each input to the index of its first occurrence in distinct
+        Map<T, Integer> positions = new HashMap<>(inputs.size() * 2);
+        List<T> distinct = new ArrayList<>();
+        int[] indices = new int[inputs.size()];
+
+        for (int i = 0; i < inputs.size(); i++) {
+            T input = inputs.get(i);
+
+            Integer position = positions.get(input);
+            if (position == null) {
+                position = distinct.size();
+                positions.put(input, position);
+                distinct.add(input);
+            }
+
+            indices[i] = position;
+        }
+
+        // No duplicates, run as is
+        if (distinct.size() == inputs.size()) {
+            return call.apply(inputs);
+        }
+
+        Metrics metrics = Transport.metrics();
+        if (metrics != null) {
+            metrics.deduplication(endpoint, inputs.size(), distinct.size());
+        }
+
+        CompletableFuture<List<R>> request = call.apply(distinct);
+        CompletableFuture<List<R>> result = new CompletableFuture<>();
+
+        request.whenComplete((outputs, error) -> {
+            if (error == null && (outputs == null || outputs.size() != distinct.size())) {
+                error = new IOException("Expected " + distinct.size() + " results, received " +
+                                        (outputs != null ? outputs.size() : 0));
+            }
+
+            if (error instanceof CompletionException && error.getCause() != null) {
+                error = error.getCause();
+            }
+
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+
+            // Expand back to input positions
+            List<R> expanded = new ArrayList<>(indices.length);
+            for (int index : indices) {
+                expanded.add(outputs.get(index));
+            }
+
+            result.complete(expanded);
+        });
+
+        // Propagate cancellation to the request
+        result.whenComplete((outputs, error) -> {
+            if (result.isCancelled()) {
+                request.cancel(true);
+            }
+        });
+
+        return result;
+    }
+}
@@ -2,21 +2,40 @@ package txtai;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
 
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.Multipart;
 import retrofit2.http.POST;
 import retrofit2.http.Part;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 import txtai.API.IndexResult;
 
@@ -26,6 +45,12 @@ import txtai.API.IndexResult;
 @SuppressWarnings("rawtypes")
 public class Embeddings {
     private Remote api;
+    private Batching batching;
+    private Cache cache;
+    private Coalescing coalescing;
+    private Hedging hedging;
+    private Codec codec;
+    private ByteBatching uploads;
 
     /**
      * API definition
@@ -38,6 +63,17 @@ public class Embeddings {
         @POST("batchsearch")
         Call<List<List<SearchResult>>> batchsearch(@Body HashMap params);
 
+        @Streaming
+        @POST("batchsearch")
+        Call<ResponseBody> batchsearchStream(@Body HashMap params);
+
+        @GET("search")
+        Call<SearchResults> searchset(@Query("query") String query, @Query("limit") int limit,
+                                      @Query("weights") Float weights, @Query("index") String index);
+
+        @POST("batchsearch")
+        Call<List<SearchResults>> batchsearchset(@Body HashMap params);
+
         @POST("add")
         Call<Void> add(@Body List documents);
 
@@ -62,12 +98,31 @@ public class Embeddings {
         @POST("batchsimilarity")
         Call<List<List<IndexResult>>> batchsimilarity(@Body HashMap params);
 
+        @POST("similarity")
+        Call<IndexResults> similarityset(@Body HashMap params);
+
         @GET("transform")
         Call<List<Double>> transform(@Query("text") String text);
 
         @POST("batchtransform")
         Call<List<List<Double>>> batchtransform(@Body List<String> texts);
 
+        @Streaming
+        @POST("batchtransform")
+        Call<ResponseBody> batchtransformStream(@Body List<String> texts);
+
+        @GET("transform")
+        Call<float[]> vector(@Query("text") String text);
+
+        @POST("batchtransform")
+        Call<float[][]> vectors(@Body List<String> texts);
+
+        @GET("transform")
+        Call<ResponseBody> vectorEncoded(@Query("text") String text, @Header("Accept") String accept);
+
+        @POST("batchtransform")
+        Call<ResponseBody> vectorsEncoded(@Body List<String> texts, @Header("Accept") String accept);
+
         @Multipart
         @POST("addobject")
         Call<Void> addobject(@Part List<MultipartBody.Part> data,
@@ -100,6 +155,19 @@ public class Embeddings {
         }
     }
 
+    /**
+     * Callback for streaming batch methods.
+     */
+    public interface Callback<T> {
+        /**
+         * Called once per element as it's decoded, in input order.
+         *
+         * @param index element index
+         * @param element decoded element
+         */
+        void accept(int index, T element) throws IOException;
+    }
+
     /**
      * SearchResult
      */
@@ -142,6 +210,82 @@ public class Embeddings {
         this.api = API.create(url, token, Remote.class);
     }
 
+    /**
+     * Creates a Embeddings instance with request body compression.
+     *
+     * @param url API url
+     * @param token API token
+     * @param compression request compression, can be null
+     */
+    public Embeddings(String url, String token, Compression compression) {
+        // Create API instance
+        this.api = API.create(url, token, compression, Remote.class);
+    }
+
+    /**
+     * Sets the batching policy for batch methods. Large inputs are split into chunks that run concurrently.
+     * Defaults to null, which sends each batch as a single request.
+     *
+     * @param batching batching policy, can be null
+     */
+    public void setBatching(Batching batching) {
+        this.batching = batching;
+    }
+
+    /**
+     * Sets the response cache. Single and batch calls check the cache first and only send cache misses
+     * to the server. Defaults to null, which disables caching.
+     *
+     * @param cache response cache, can be null
+     */
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Sets the coalescing policy for single item calls. Concurrent calls are merged into batch requests.
+     * Defaults to null, which sends each call as its own request. A policy can be shared
+     * across clients, calls are only merged with calls from the same client.
+     *
+     * @param coalescing coalescing policy, can be null
+     */
+    public void setCoalescing(Coalescing coalescing) {
+        this.coalescing = coalescing;
+    }
+
+    /**
+     * Sets the hedging policy for read calls (search, batchsearch, similarity, transform and count). Slow
+     * calls are raced against a backup request. Defaults to null, which disables hedging.
+     *
+     * @param hedging hedging policy, can be null
+     */
+    public void setHedging(Hedging hedging) {
+        this.hedging = hedging;
+    }
+
+    /**
+     * Sets the upload batching policy for addobject and addimage. Uploads are split into multiple requests
+     * by total byte size and run concurrently, for example new ByteBatching(32L << 20, 1000, 2). Split uploads
+     * aren't atomic, a failed request can leave part of a batch added. Defaults to null, which sends each
+     * upload as a single request.
+     *
+     * @param uploads upload batching policy, can be null
+     */
+    public void setUploads(ByteBatching uploads) {
+        this.uploads = uploads;
+    }
+
+    /**
+     * Sets the preferred vector codec for {@link #vector(String)} and {@link #vectors(List)}. The codec is
+     * requested with content negotiation and responses fall back to JSON when the server doesn't support it.
+     * Defaults to null, which uses JSON.
+     *
+     * @param codec vector codec, can be null
+     */
+    public void setCodec(Codec codec) {
+        this.codec = codec;
+    }
+
     /**
      * Finds documents in the embeddings model most similar to the input query. Returns
      * a list of {id: value, score: value} sorted by highest score, where id is the
@@ -154,9 +298,31 @@ public class Embeddings {
      * @return list of {id: value, score: value}
      */
     public List<SearchResult> search(String query, int limit, Float weights, String index) throws IOException {
+        if (this.coalescing != null || this.hedging != null) {
+            return API.get(this.searchAsync(query, limit, weights, index));
+        }
+
         return this.api.search(query, limit, weights, index).execute().body();
     }
 
+    /**
+     * Asynchronous version of {@link #search(String, int, Float, String)}.
+     *
+     * @param query query text
+     * @param limit maximum results
+     * @param weights hybrid score weights, if applicable
+     * @param index index name, if applicable
+     * @return future list of {id: value, score: value}
+     */
+    public CompletableFuture<List<SearchResult>> searchAsync(String query, int limit, Float weights, String index) {
+        if (this.coalescing != null) {
+            return this.coalescing.submit(Arrays.asList(this, "search", limit, weights, index), query,
+                                          x -> this.batchsearchAsync(x, limit, weights, index));
+        }
+
+        return this.hedge("search", this.api.search(query, limit, weights, index));
+    }
+
     /**
      * Finds documents in the embeddings model most similar to the input queries. Returns
      * a list of {id: value, score: value} sorted by highest score per query, where id is
@@ -169,14 +335,130 @@ public class Embeddings {
      * @return list of {id: value, score: value} per query
      */
     public List<List<SearchResult>> batchsearch(List<String> queries, int limit, Float weights, String index) throws IOException {
-        // Post parameters
-        HashMap<String, Object> params = new HashMap<String, Object>();
-        params.put("queries", queries);
-        params.put("limit", limit);
-        params.put("weights", weights);
-        params.put("index", index);
+        if (this.batching != null || this.hedging != null || Deduplication.duplicates(queries)) {
+            return API.get(this.batchsearchAsync(queries, limit, weights, index));
+        }
+
+        return this.batchsearchCall(queries, limit, weights, index).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #batchsearch(List, int, Float, String)}.
+     *
+     * @param queries queries text
+     * @param limit maximum results
+     * @param weights hybrid score weights, if applicable
+     * @param index index name, if applicable
+     * @return future list of {id: value, score: value} per query
+     */
+    public CompletableFuture<List<List<SearchResult>>> batchsearchAsync(List<String> queries, int limit, Float weights, String index) {
+        return Deduplication.apply("batchsearch", queries, x -> {
+            if (this.batching != null) {
+                return this.batching.apply(x, chunk -> this.hedge("batchsearch", this.batchsearchCall(chunk, limit, weights, index)));
+            }
+
+            return this.hedge("batchsearch", this.batchsearchCall(x, limit, weights, index));
+        });
+    }
+
+    /**
+     * Streaming version of {@link #batchsearch(List, int, Float, String)}. The response is decoded incrementally
+     * and callback is called with the query index and results as each query is parsed. The full response is
+     * never held in memory. Runs as a single request, batching and hedging policies don't apply.
+     *
+     * @param queries queries text
+     * @param limit maximum results
+     * @param weights hybrid score weights, if applicable
+     * @param index index name, if applicable
+     * @param callback receives query index and list of {id: value, score: value}
+     */
+    public void batchsearch(List<String> queries, int limit, Float weights, String index, Callback<List<SearchResult>> callback) throws IOException {
+        Embeddings.stream(this.api.batchsearchStream(this.batchsearchParams(queries, limit, weights, index)).execute().body(),
+                          Transport.gson().getAdapter(new TypeToken<List<SearchResult>>() {}), callback);
+    }
+
+    /**
+     * Asynchronous version of {@link #batchsearch(List, int, Float, String, Callback)}. Callbacks run on the http
+     * client thread.
+     *
+     * @param queries queries text
+     * @param limit maximum results
+     * @param weights hybrid score weights, if applicable
+     * @param index index name, if applicable
+     * @param callback receives query index and list of {id: value, score: value}
+     * @return future that completes after the last callback
+     */
+    public CompletableFuture<Void> batchsearchAsync(List<String> queries, int limit, Float weights, String index, Callback<List<SearchResult>> callback) {
+        return API.async(this.api.batchsearchStream(this.batchsearchParams(queries, limit, weights, index)))
+            .thenAccept(body -> Embeddings.streamUnchecked(body, Transport.gson().getAdapter(new TypeToken<List<SearchResult>>() {}), callback));
+    }
+
+    /**
+     * Columnar version of {@link #search(String, int, Float, String)}. Hits are decoded into parallel id and
+     * score arrays without creating an object per hit.
+     *
+     * @param query query text
+     * @param limit maximum results
+     * @param weights hybrid score weights, if applicable
+     * @param index index name, if applicable
+     * @return search results
+     */
+    public SearchResults searchset(String query, int limit, Float weights, String index) throws IOException {
+        if (this.hedging != null) {
+            return API.get(this.searchsetAsync(query, limit, weights, index));
+        }
+
+        return this.api.searchset(query, limit, weights, index).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #searchset(String, int, Float, String)}.
+     *
+     * @param query query text
+     * @param limit maximum results
+     * @param weights hybrid score weights, if applicable
+     * @param index index name, if applicable
+     * @return future search results
+     */
+    public CompletableFuture<SearchResults> searchsetAsync(String query, int limit, Float weights, String index) {
+        return this.hedge("search", this.api.searchset(query, limit, weights, index));
+    }
+
+    /**
+     * Columnar version of {@link #batchsearch(List, int, Float, String)}. Hits are decoded into parallel id
+     * and score arrays without creating an object per hit.
+     *
+     * @param queries queries text
+     * @param limit maximum results
+     * @param weights hybrid score weights, if applicable
+     * @param index index name, if applicable
+     * @return search results per query
+     */
+    public List<SearchResults> batchsearchset(List<String> queries, int limit, Float weights, String index) throws IOException {
+        if (this.batching != null || this.hedging != null || Deduplication.duplicates(queries)) {
+            return API.get(this.batchsearchsetAsync(queries, limit, weights, index));
+        }
 
-        return this.api.batchsearch(params).execute().body();
+        return this.api.batchsearchset(this.batchsearchParams(queries, limit, weights, index)).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #batchsearchset(List, int, Float, String)}.
+     *
+     * @param queries queries text
+     * @param limit maximum results
+     * @param weights hybrid score weights, if applicable
+     * @param index index name, if applicable
+     * @return future search results per query
+     */
+    public CompletableFuture<List<SearchResults>> batchsearchsetAsync(List<String> queries, int limit, Float weights, String index) {
+        return Deduplication.apply("batchsearch", queries, x -> {
+            if (this.batching != null) {
+                return this.batching.apply(x, chunk -> this.hedge("batchsearch", this.api.batchsearchset(this.batchsearchParams(chunk, limit, weights, index))));
+            }
+
+            return this.hedge("batchsearch", this.api.batchsearchset(this.batchsearchParams(x, limit, weights, index)));
+        });
     }
 
     /**
@@ -188,6 +470,16 @@ public class Embeddings {
         this.api.add(documents).execute();
     }
 
+    /**
+     * Asynchronous version of {@link #add(List)}.
+     *
+     * @param documents list of {id: value, text: value}
+     * @return future that completes when the batch is added
+     */
+    public CompletableFuture<Void> addAsync(List documents) {
+        return API.async(this.api.add(documents));
+    }
+
     /**
      * Builds an embeddings index for previously batched documents.
      */
@@ -195,6 +487,15 @@ public class Embeddings {
         this.api.index().execute();
     }
 
+    /**
+     * Asynchronous version of {@link #index()}.
+     *
+     * @return future that completes when the index is built
+     */
+    public CompletableFuture<Void> indexAsync() {
+        return API.async(this.api.index());
+    }
+
     /**
      * Runs an embeddings upsert operation for previously batched documents.
      */
@@ -202,6 +503,15 @@ public class Embeddings {
         this.api.upsert().execute();
     }
 
+    /**
+     * Asynchronous version of {@link #upsert()}.
+     *
+     * @return future that completes when the upsert is finished
+     */
+    public CompletableFuture<Void> upsertAsync() {
+        return API.async(this.api.upsert());
+    }
+
     /**
      * Deletes from an embeddings index. Returns list of ids deleted.
      *
@@ -212,6 +522,16 @@ public class Embeddings {
         return this.api.delete(ids).execute().body();
     }
 
+    /**
+     * Asynchronous version of {@link #delete(List)}.
+     *
+     * @param ids list of ids to delete
+     * @return future ids deleted
+     */
+    public CompletableFuture<List<String>> deleteAsync(List<String> ids) {
+        return API.async(this.api.delete(ids));
+    }
+
     /**
      * Recreates this embeddings index using config. This method only works if document content storage is enabled.
      *
@@ -219,12 +539,18 @@ public class Embeddings {
      * @param function optional function to prepare content for indexing
      */
     public void reindex(HashMap config, String function) throws IOException {
-        // Post parameters
-        HashMap<String, Object> params = new HashMap<String, Object>();
-        params.put("config", config);
-        params.put("function", function);
+        this.reindexCall(config, function).execute();
+    }
 
-        this.api.reindex(params).execute();
+    /**
+     * Asynchronous version of {@link #reindex(HashMap, String)}.
+     *
+     * @param config new config
+     * @param function optional function to prepare content for indexing
+     * @return future that completes when the index is rebuilt
+     */
+    public CompletableFuture<Void> reindexAsync(HashMap config, String function) {
+        return API.async(this.reindexCall(config, function));
     }
 
     /**
@@ -233,9 +559,22 @@ public class Embeddings {
      * @return number of elements in embeddings index
      */
     public int count() throws IOException {
+        if (this.hedging != null) {
+            return API.get(this.countAsync());
+        }
+
         return this.api.count().execute().body();
     }
 
+    /**
+     * Asynchronous version of {@link #count()}.
+     *
+     * @return future number of elements in embeddings index
+     */
+    public CompletableFuture<Integer> countAsync() {
+        return this.hedge("count", this.api.count());
+    }
+
     /**
      * Computes the similarity between query and list of text. Returns a list of
      * {id: value, score: value} sorted by highest score, where id is the index
@@ -246,12 +585,49 @@ public class Embeddings {
      * @return list of {id: value, score: value}
      */
     public List<IndexResult> similarity(String query, List<String> texts) throws IOException {
-        // Post parameters
-        HashMap<String, Object> params = new HashMap<String, Object>();
-        params.put("query", query);
-        params.put("texts", texts);
+        if (this.hedging != null) {
+            return API.get(this.similarityAsync(query, texts));
+        }
+
+        return this.similarityCall(query, texts).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #similarity(String, List)}.
+     *
+     * @param query query text
+     * @param texts list of text
+     * @return future list of {id: value, score: value}
+     */
+    public CompletableFuture<List<IndexResult>> similarityAsync(String query, List<String> texts) {
+        return this.hedge("similarity", this.similarityCall(query, texts));
+    }
 
-        return this.api.similarity(params).execute().body();
+    /**
+     * Columnar version of {@link #similarity(String, List)}. Hits are decoded into parallel index and score
+     * arrays without creating an object per hit.
+     *
+     * @param query query text
+     * @param texts list of text
+     * @return index results
+     */
+    public IndexResults similarityset(String query, List<String> texts) throws IOException {
+        if (this.hedging != null) {
+            return API.get(this.similaritysetAsync(query, texts));
+        }
+
+        return this.api.similarityset(this.similarityParams(query, texts)).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #similarityset(String, List)}.
+     *
+     * @param query query text
+     * @param texts list of text
+     * @return future index results
+     */
+    public CompletableFuture<IndexResults> similaritysetAsync(String query, List<String> texts) {
+        return this.hedge("similarity", this.api.similarityset(this.similarityParams(query, texts)));
     }
 
     /**
@@ -264,12 +640,26 @@ public class Embeddings {
      * @return list of {id: value, score: value} per query
      */
     public List<List<IndexResult>> batchsimilarity(List<String> queries, List<String> texts) throws IOException {
-        // Post parameters
-        HashMap<String, Object> params = new HashMap<String, Object>();
-        params.put("queries", queries);
-        params.put("texts", texts);
+        if (this.batching != null) {
+            return API.get(this.batchsimilarityAsync(queries, texts));
+        }
+
+        return this.batchsimilarityCall(queries, texts).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #batchsimilarity(List, List)}.
+     *
+     * @param queries queries text
+     * @param texts list of text
+     * @return future list of {id: value, score: value} per query
+     */
+    public CompletableFuture<List<List<IndexResult>>> batchsimilarityAsync(List<String> queries, List<String> texts) {
+        if (this.batching != null) {
+            return this.batching.apply(queries, chunk -> API.async(this.batchsimilarityCall(chunk, texts)));
+        }
 
-        return this.api.batchsimilarity(params).execute().body();
+        return API.async(this.batchsimilarityCall(queries, texts));
     }
 
     /**
@@ -279,9 +669,27 @@ public class Embeddings {
      * @return embeddings array
      */
     public List<Double> transform(String text) throws IOException {
+        if (this.cache != null || this.coalescing != null || this.hedging != null) {
+            return API.get(this.transformAsync(text));
+        }
+
         return this.api.transform(text).execute().body();
     }
 
+    /**
+     * Asynchronous version of {@link #transform(String)}.
+     *
+     * @param text input text
+     * @return future embeddings array
+     */
+    public CompletableFuture<List<Double>> transformAsync(String text) {
+        if (this.cache != null) {
+            return this.cache.apply("transform", text, null, this::transformRun);
+        }
+
+        return this.transformRun(text);
+    }
+
     /**
      * Transforms list of text into embeddings arrays.
      *
@@ -289,34 +697,138 @@ public class Embeddings {
      * @return embeddings arrays
      */
     public List<List<Double>> batchtransform(List<String> texts) throws IOException {
+        if (this.batching != null || this.cache != null || this.hedging != null || Deduplication.duplicates(texts)) {
+            return API.get(this.batchtransformAsync(texts));
+        }
+
         return this.api.batchtransform(texts).execute().body();
     }
 
     /**
-     * Adds a batch of binary objects for indexing.
+     * Asynchronous version of {@link #batchtransform(List)}.
      *
-     * @param data list of binary data as byte arrays
-     * @param uid list of corresponding ids (optional, can be null)
-     * @param field optional object field name (can be null)
+     * @param texts list of text
+     * @return future embeddings arrays
      */
-    public void addobject(List<byte[]> data, List<String> uid, String field) throws IOException {
-        List<MultipartBody.Part> parts = new ArrayList<>();
-        for (int i = 0; i < data.size(); i++) {
-            RequestBody body = RequestBody.create(MediaType.parse("application/octet-stream"), data.get(i));
-            parts.add(MultipartBody.Part.createFormData("data", "file" + i, body));
+    public CompletableFuture<List<List<Double>>> batchtransformAsync(List<String> texts) {
+        if (this.cache != null) {
+            return this.cache.batch("transform", texts, null, this::batchtransformRun);
         }
 
-        List<RequestBody> uidBodies = null;
-        if (uid != null) {
-            uidBodies = new ArrayList<>();
-            for (String id : uid) {
-                uidBodies.add(RequestBody.create(MediaType.parse("text/plain"), id));
-            }
+        return this.batchtransformRun(texts);
+    }
+
+    /**
+     * Streaming version of {@link #batchtransform(List)}. The response is decoded incrementally and callback is
+     * called with the row index and vector as each row is parsed. The full response is never held in memory.
+     * Runs as a single request, batching, caching and hedging policies don't apply.
+     *
+     * @param texts list of text
+     * @param callback receives row index and embeddings vector
+     */
+    public void batchtransform(List<String> texts, Callback<float[]> callback) throws IOException {
+        Embeddings.stream(this.api.batchtransformStream(texts).execute().body(), Transport.gson().getAdapter(float[].class), callback);
+    }
+
+    /**
+     * Asynchronous version of {@link #batchtransform(List, Callback)}. Callbacks run on the http client thread.
+     *
+     * @param texts list of text
+     * @param callback receives row index and embeddings vector
+     * @return future that completes after the last callback
+     */
+    public CompletableFuture<Void> batchtransformAsync(List<String> texts, Callback<float[]> callback) {
+        return API.async(this.api.batchtransformStream(texts))
+            .thenAccept(body -> Embeddings.streamUnchecked(body, Transport.gson().getAdapter(float[].class), callback));
+    }
+
+    /**
+     * Transforms text into an embeddings vector. The response is decoded directly into a primitive array.
+     *
+     * @param text input text
+     * @return embeddings vector
+     */
+    public float[] vector(String text) throws IOException {
+        if (this.codec != null) {
+            return this.decode(this.api.vectorEncoded(text, Codec.accept(this.codec)).execute().body(), 1)[0];
         }
 
-        RequestBody fieldBody = field != null ? RequestBody.create(MediaType.parse("text/plain"), field) : null;
+        return this.api.vector(text).execute().body();
+    }
 
-        this.api.addobject(parts, uidBodies, fieldBody).execute();
+    /**
+     * Asynchronous version of {@link #vector(String)}.
+     *
+     * @param text input text
+     * @return future embeddings vector
+     */
+    public CompletableFuture<float[]> vectorAsync(String text) {
+        if (this.codec != null) {
+            return API.async(this.api.vectorEncoded(text, Codec.accept(this.codec))).thenApply(body -> this.decodeUnchecked(body, 1)[0]);
+        }
+
+        return API.async(this.api.vector(text));
+    }
+
+    /**
+     * Transforms list of text into embeddings vectors. The response is decoded directly into primitive arrays.
+     *
+     * @param texts list of text
+     * @return embeddings vectors, one row per text
+     */
+    public float[][] vectors(List<String> texts) throws IOException {
+        if (this.batching != null) {
+            return API.get(this.vectorsAsync(texts));
+        }
+
+        if (this.codec != null) {
+            return this.decode(this.api.vectorsEncoded(texts, Codec.accept(this.codec)).execute().body(), texts.size());
+        }
+
+        return this.api.vectors(texts).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #vectors(List)}.
+     *
+     * @param texts list of text
+     * @return future embeddings vectors, one row per text
+     */
+    public CompletableFuture<float[][]> vectorsAsync(List<String> texts) {
+        if (this.batching != null) {
+            return this.batching.apply(texts, chunk -> this.vectorsRun(chunk).thenApply(Arrays::asList))
+                .thenApply(rows -> rows.toArray(new float[rows.size()][]));
+        }
+
+        return this.vectorsRun(texts);
+    }
+
+    /**
+     * Adds a batch of binary objects for indexing.
+     *
+     * @param data list of binary data as byte arrays
+     * @param uid list of corresponding ids (optional, can be null)
+     * @param field optional object field name (can be null)
+     */
+    public void addobject(List<byte[]> data, List<String> uid, String field) throws IOException {
+        if (this.uploads != null) {
+            API.get(this.upload(false, this.objects(data), this.uids(uid), this.field(field)));
+            return;
+        }
+
+        this.api.addobject(this.objects(data), this.uids(uid), this.field(field)).execute();
+    }
+
+    /**
+     * Asynchronous version of {@link #addobject(List, List, String)}.
+     *
+     * @param data list of binary data as byte arrays
+     * @param uid list of corresponding ids (optional, can be null)
+     * @param field optional object field name (can be null)
+     * @return future that completes when the batch is added
+     */
+    public CompletableFuture<Void> addobjectAsync(List<byte[]> data, List<String> uid, String field) {
+        return this.upload(false, this.objects(data), this.uids(uid), this.field(field));
     }
 
     /**
@@ -327,23 +839,24 @@ public class Embeddings {
      * @param field optional object field name (can be null)
      */
     public void addobject(File[] files, List<String> uid, String field) throws IOException {
-        List<MultipartBody.Part> parts = new ArrayList<>();
-        for (File file : files) {
-            RequestBody body = RequestBody.create(MediaType.parse("application/octet-stream"), file);
-            parts.add(MultipartBody.Part.createFormData("data", file.getName(), body));
-        }
-
-        List<RequestBody> uidBodies = null;
-        if (uid != null) {
-            uidBodies = new ArrayList<>();
-            for (String id : uid) {
-                uidBodies.add(RequestBody.create(MediaType.parse("text/plain"), id));
-            }
+        if (this.uploads != null) {
+            API.get(this.upload(false, this.objects(files), this.uids(uid), this.field(field)));
+            return;
         }
 
-        RequestBody fieldBody = field != null ? RequestBody.create(MediaType.parse("text/plain"), field) : null;
+        this.api.addobject(this.objects(files), this.uids(uid), this.field(field)).execute();
+    }
 
-        this.api.addobject(parts, uidBodies, fieldBody).execute();
+    /**
+     * Asynchronous version of {@link #addobject(File[], List, String)}.
+     *
+     * @param files list of files to upload
+     * @param uid list of corresponding ids (optional, can be null)
+     * @param field optional object field name (can be null)
+     * @return future that completes when the batch is added
+     */
+    public CompletableFuture<Void> addobjectAsync(File[] files, List<String> uid, String field) {
+        return this.upload(false, this.objects(files), this.uids(uid), this.field(field));
     }
 
     /**
@@ -354,24 +867,24 @@ public class Embeddings {
      * @param field optional object field name (can be null)
      */
     public void addimage(File[] files, List<String> uid, String field) throws IOException {
-        List<MultipartBody.Part> parts = new ArrayList<>();
-        for (File file : files) {
-            String contentType = getImageContentType(file.getName());
-            RequestBody body = RequestBody.create(MediaType.parse(contentType), file);
-            parts.add(MultipartBody.Part.createFormData("data", file.getName(), body));
-        }
-
-        List<RequestBody> uidBodies = null;
-        if (uid != null) {
-            uidBodies = new ArrayList<>();
-            for (String id : uid) {
-                uidBodies.add(RequestBody.create(MediaType.parse("text/plain"), id));
-            }
+        if (this.uploads != null) {
+            API.get(this.upload(true, this.images(files), this.uids(uid), this.field(field)));
+            return;
         }
 
-        RequestBody fieldBody = field != null ? RequestBody.create(MediaType.parse("text/plain"), field) : null;
+        this.api.addimage(this.images(files), this.uids(uid), this.field(field)).execute();
+    }
 
-        this.api.addimage(parts, uidBodies, fieldBody).execute();
+    /**
+     * Asynchronous version of {@link #addimage(File[], List, String)}.
+     *
+     * @param files list of image files to upload
+     * @param uid list of corresponding ids
+     * @param field optional object field name (can be null)
+     * @return future that completes when the batch is added
+     */
+    public CompletableFuture<Void> addimageAsync(File[] files, List<String> uid, String field) {
+        return this.upload(true, this.images(files), this.uids(uid), this.field(field));
     }
 
     /**
@@ -382,12 +895,643 @@ public class Embeddings {
      * @param field optional object field name (can be null)
      */
     public void addimage(List<byte[]> data, List<String> uid, String field) throws IOException {
+        if (this.uploads != null) {
+            API.get(this.upload(true, this.images(data), this.uids(uid), this.field(field)));
+            return;
+        }
+
+        this.api.addimage(this.images(data), this.uids(uid), this.field(field)).execute();
+    }
+
+    /**
+     * Asynchronous version of {@link #addimage(List, List, String)}.
+     *
+     * @param data list of image data as byte arrays
+     * @param uid list of corresponding ids
+     * @param field optional object field name (can be null)
+     * @return future that completes when the batch is added
+     */
+    public CompletableFuture<Void> addimageAsync(List<byte[]> data, List<String> uid, String field) {
+        return this.upload(true, this.images(data), this.uids(uid), this.field(field));
+    }
+
+    /**
+     * Adds a batch of binary objects for indexing. Files are streamed from disk without buffering them in
+     * memory. Uploads are split into requests when an upload batching policy is set, see {@link
+     * #setUploads(ByteBatching)}.
+     *
+     * @param paths list of files to upload
+     * @param uid list of corresponding ids (optional, can be null)
+     * @param field optional object field name (can be null)
+     */
+    public void addobject(Path[] paths, List<String> uid, String field) throws IOException {
+        API.get(this.addobjectAsync(paths, uid, field));
+    }
+
+    /**
+     * Asynchronous version of {@link #addobject(Path[], List, String)}.
+     *
+     * @param paths list of files to upload
+     * @param uid list of corresponding ids (optional, can be null)
+     * @param field optional object field name (can be null)
+     * @return future that completes when the batch is added
+     */
+    public CompletableFuture<Void> addobjectAsync(Path[] paths, List<String> uid, String field) {
+        return this.upload(false, this.objects(paths), this.uids(uid), this.field(field));
+    }
+
+    /**
+     * Adds a batch of binary objects for indexing. Streams are read while uploading without buffering them in
+     * memory. Uploads are split into requests when an upload batching policy is set, see {@link
+     * #setUploads(ByteBatching)}.
+     *
+     * @param streams list of object streams to upload, each stream is closed after it's sent or when the upload fails
+     * @param uid list of corresponding ids (optional, can be null)
+     * @param field optional object field name (can be null)
+     */
+    public void addobject(InputStream[] streams, List<String> uid, String field) throws IOException {
+        API.get(this.addobjectAsync(streams, uid, field));
+    }
+
+    /**
+     * Asynchronous version of {@link #addobject(InputStream[], List, String)}.
+     *
+     * @param streams list of object streams to upload, each stream is closed after it's sent or when the upload fails
+     * @param uid list of corresponding ids (optional, can be null)
+     * @param field optional object field name (can be null)
+     * @return future that completes when the batch is added
+     */
+    public CompletableFuture<Void> addobjectAsync(InputStream[] streams, List<String> uid, String field) {
+        return Embeddings.closing(streams, () -> this.upload(false, this.objects(streams), this.uids(uid), this.field(field)));
+    }
+
+    /**
+     * Adds a batch of images for indexing. Files are streamed from disk without buffering them in memory.
+     * Uploads are split into requests when an upload batching policy is set, see {@link #setUploads(ByteBatching)}.
+     *
+     * @param paths list of image files to upload
+     * @param uid list of corresponding ids
+     * @param field optional object field name (can be null)
+     */
+    public void addimage(Path[] paths, List<String> uid, String field) throws IOException {
+        API.get(this.addimageAsync(paths, uid, field));
+    }
+
+    /**
+     * Asynchronous version of {@link #addimage(Path[], List, String)}.
+     *
+     * @param paths list of image files to upload
+     * @param uid list of corresponding ids
+     * @param field optional object field name (can be null)
+     * @return future that completes when the batch is added
+     */
+    public CompletableFuture<Void> addimageAsync(Path[] paths, List<String> uid, String field) {
+        return this.upload(true, this.images(paths), this.uids(uid), this.field(field));
+    }
+
+    /**
+     * Adds a batch of images for indexing. Streams are read while uploading without buffering them in memory.
+     * Uploads are split into requests when an upload batching policy is set, see {@link #setUploads(ByteBatching)}.
+     *
+     * @param streams list of image streams to upload, each stream is closed after it's sent or when the upload fails
+     * @param uid list of corresponding ids
+     * @param field optional object field name (can be null)
+     */
+    public void addimage(InputStream[] streams, List<String> uid, String field) throws IOException {
+        API.get(this.addimageAsync(streams, uid, field));
+    }
+
+    /**
+     * Asynchronous version of {@link #addimage(InputStream[], List, String)}.
+     *
+     * @param streams list of image streams to upload, each stream is closed after it's sent or when the upload fails
+     * @param uid list of corresponding ids
+     * @param field optional object field name (can be null)
+     * @return future that completes when the batch is added
+     */
+    public CompletableFuture<Void> addimageAsync(InputStream[] streams, List<String> uid, String field) {
+        return Embeddings.closing(streams, () -> this.upload(true, this.images(streams), this.uids(uid), this.field(field)));
+    }
+
+    /**
+     * Runs a transform request, applying the coalescing policy if set.
+     *
+     * @param text input text
+     * @return future result
+     */
+    private CompletableFuture<List<Double>> transformRun(String text) {
+        if (this.coalescing != null) {
+            return this.coalescing.submit(Arrays.asList(this, "transform"), text, this::batchtransformRun);
+        }
+
+        return this.hedge("transform", this.api.transform(text));
+    }
+
+    /**
+     * Runs a batchtransform request over distinct texts, applying the batching policy if set.
+     *
+     * @param texts list of text
+     * @return future results
+     */
+    private CompletableFuture<List<List<Double>>> batchtransformRun(List<String> texts) {
+        return Deduplication.apply("batchtransform", texts, x -> {
+            if (this.batching != null) {
+                return this.batching.apply(x, chunk -> this.hedge("batchtransform", this.api.batchtransform(chunk)));
+            }
+
+            return this.hedge("batchtransform", this.api.batchtransform(x));
+        });
+    }
+
+    /**
+     * Runs a vectors request, applying the codec if set.
+     *
+     * @param texts list of text
+     * @return future embeddings vectors
+     */
+    private CompletableFuture<float[][]> vectorsRun(List<String> texts) {
+        if (this.codec != null) {
+            return API.async(this.api.vectorsEncoded(texts, Codec.accept(this.codec))).thenApply(body -> this.decodeUnchecked(body, texts.size()));
+        }
+
+        return API.async(this.api.vectors(texts));
+    }
+
+    /**
+     * Decodes a vectors response with the codec matching its content type.
+     *
+     * @param body response body
+     * @param rows expected number of vectors
+     * @return vectors
+     */
+    private float[][] decode(ResponseBody body, int rows) throws IOException {
+        float[][] vectors;
+        try (ResponseBody response = body) {
+            vectors = Codec.select(this.codec, response.contentType()).decode(response.source());
+        }
+
+        if (vectors.length != rows) {
+            throw new IOException("Expected " + rows + " vectors, received " + vectors.length);
+        }
+
+        return vectors;
+    }
+
+    /**
+     * Version of {@link #decode(ResponseBody, int)} for future stages. IOExceptions are rethrown as UncheckedIOExceptions.
+     *
+     * @param body response body
+     * @param rows expected number of vectors
+     * @return vectors
+     */
+    private float[][] decodeUnchecked(ResponseBody body, int rows) {
+        try {
+            return this.decode(body, rows);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Runs a read call, applying the hedging policy if set.
+     *
+     * @param endpoint endpoint name
+     * @param call API call
+     * @return future response body
+     */
+    private <T> CompletableFuture<T> hedge(String endpoint, Call<T> call) {
+        if (this.hedging != null) {
+            return this.hedging.apply(endpoint, call);
+        }
+
+        return API.async(call);
+    }
+
+    /**
+     * Builds a batchsearch call.
+     *
+     * @param queries queries text
+     * @param limit maximum results
+     * @param weights hybrid score weights, if applicable
+     * @param index index name, if applicable
+     * @return call
+     */
+    private Call<List<List<SearchResult>>> batchsearchCall(List<String> queries, int limit, Float weights, String index) {
+        return this.api.batchsearch(this.batchsearchParams(queries, limit, weights, index));
+    }
+
+    /**
+     * Builds batchsearch post parameters.
+     *
+     * @param queries queries text
+     * @param limit maximum results
+     * @param weights hybrid score weights, if applicable
+     * @param index index name, if applicable
+     * @return parameters
+     */
+    private HashMap<String, Object> batchsearchParams(List<String> queries, int limit, Float weights, String index) {
+        // Post parameters
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("queries", queries);
+        params.put("limit", limit);
+        params.put("weights", weights);
+        params.put("index", index);
+
+        return params;
+    }
+
+    /**
+     * Decodes a JSON array response one element at a time.
+     *
+     * @param body response body
+     * @param adapter element adapter
+     * @param callback element callback
+     */
+    private static <T> void stream(ResponseBody body, TypeAdapter<T> adapter, Callback<T> callback) throws IOException {
+        try (JsonReader reader = new JsonReader(body.charStream())) {
+            reader.beginArray();
+            for (int i = 0; reader.hasNext(); i++) {
+                callback.accept(i, adapter.read(reader));
+            }
+            reader.endArray();
+        }
+    }
+
+    /**
+     * Version of {@link #stream(ResponseBody, TypeAdapter, Callback)} for future stages. IOExceptions are
+     * rethrown as UncheckedIOExceptions.
+     *
+     * @param body response body
+     * @param adapter element adapter
+     * @param callback element callback
+     */
+    private static <T> void streamUnchecked(ResponseBody body, TypeAdapter<T> adapter, Callback<T> callback) {
+        try {
+            Embeddings.stream(body, adapter, callback);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Builds a reindex call.
+     *
+     * @param config new config
+     * @param function optional function to prepare content for indexing
+     * @return call
+     */
+    private Call<Void> reindexCall(HashMap config, String function) {
+        // Post parameters
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("config", config);
+        params.put("function", function);
+
+        return this.api.reindex(params);
+    }
+
+    /**
+     * Builds a similarity call.
+     *
+     * @param query query text
+     * @param texts list of text
+     * @return call
+     */
+    private Call<List<IndexResult>> similarityCall(String query, List<String> texts) {
+        return this.api.similarity(this.similarityParams(query, texts));
+    }
+
+    /**
+     * Builds similarity post parameters.
+     *
+     * @param query query text
+     * @param texts list of text
+     * @return parameters
+     */
+    private HashMap<String, Object> similarityParams(String query, List<String> texts) {
+        // Post parameters
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("query", query);
+        params.put("texts", texts);
+
+        return params;
+    }
+
+    /**
+     * Builds a batchsimilarity call.
+     *
+     * @param queries queries text
+     * @param texts list of text
+     * @return call
+     */
+    private Call<List<List<IndexResult>>> batchsimilarityCall(List<String> queries, List<String> texts) {
+        // Post parameters
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("queries", queries);
+        params.put("texts", texts);
+
+        return this.api.batchsimilarity(params);
+    }
+
+    /**
+     * Builds multipart data parts for binary objects.
+     *
+     * @param data list of binary data as byte arrays
+     * @return list of parts
+     */
+    private List<MultipartBody.Part> objects(List<byte[]> data) {
+        List<MultipartBody.Part> parts = new ArrayList<>();
+        for (int i = 0; i < data.size(); i++) {
+            RequestBody body = RequestBody.create(MediaType.parse("application/octet-stream"), data.get(i));
+            parts.add(MultipartBody.Part.createFormData("data", "file" + i, body));
+        }
+
+        return parts;
+    }
+
+    /**
+     * Builds multipart data parts for binary object files.
+     *
+     * @param files list of files to upload
+     * @return list of parts
+     */
+    private List<MultipartBody.Part> objects(File[] files) {
+        List<MultipartBody.Part> parts = new ArrayList<>();
+        for (File file : files) {
+            RequestBody body = RequestBody.create(MediaType.parse("application/octet-stream"), file);
+            parts.add(MultipartBody.Part.createFormData("data", file.getName(), body));
+        }
+
+        return parts;
+    }
+
+    /**
+     * Builds multipart data parts for image files.
+     *
+     * @param files list of image files to upload
+     * @return list of parts
+     */
+    private List<MultipartBody.Part> images(File[] files) {
+        List<MultipartBody.Part> parts = new ArrayList<>();
+        for (File file : files) {
+            String contentType = getImageContentType(file.getName());
+            RequestBody body = RequestBody.create(MediaType.parse(contentType), file);
+            parts.add(MultipartBody.Part.createFormData("data", file.getName(), body));
+        }
+
+        return parts;
+    }
+
+    /**
+     * Builds multipart data parts for images.
+     *
+     * @param data list of image data as byte arrays
+     * @return list of parts
+     */
+    private List<MultipartBody.Part> images(List<byte[]> data) {
         List<MultipartBody.Part> parts = new ArrayList<>();
         for (int i = 0; i < data.size(); i++) {
             RequestBody body = RequestBody.create(MediaType.parse("image/jpeg"), data.get(i));
             parts.add(MultipartBody.Part.createFormData("data", "image" + i + ".jpg", body));
         }
 
+        return parts;
+    }
+
+    /**
+     * Builds multipart data parts for binary object files, streamed from disk.
+     *
+     * @param paths list of files to upload
+     * @return list of parts
+     */
+    private List<MultipartBody.Part> objects(Path[] paths) {
+        List<MultipartBody.Part> parts = new ArrayList<>();
+        for (Path path : paths) {
+            RequestBody body = Embeddings.stream(MediaType.parse("application/octet-stream"), path);
+            parts.add(MultipartBody.Part.createFormData("data", path.getFileName().toString(), body));
+        }
+
+        return parts;
+    }
+
+    /**
+     * Builds multipart data parts for binary object streams.
+     *
+     * @param streams list of object streams to upload
+     * @return list of parts
+     */
+    private List<MultipartBody.Part> objects(InputStream[] streams) {
+        List<MultipartBody.Part> parts = new ArrayList<>();
+        for (int i = 0; i < streams.length; i++) {
+            RequestBody body = Embeddings.stream(MediaType.parse("application/octet-stream"), streams[i]);
+            parts.add(MultipartBody.Part.createFormData("data", "file" + i, body));
+        }
+
+        return parts;
+    }
+
+    /**
+     * Builds multipart data parts for image files, streamed from disk.
+     *
+     * @param paths list of image files to upload
+     * @return list of parts
+     */
+    private List<MultipartBody.Part> images(Path[] paths) {
+        List<MultipartBody.Part> parts = new ArrayList<>();
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            RequestBody body = Embeddings.stream(MediaType.parse(getImageContentType(name)), path);
+            parts.add(MultipartBody.Part.createFormData("data", name, body));
+        }
+
+        return parts;
+    }
+
+    /**
+     * Builds multipart data parts for image streams.
+     *
+     * @param streams list of image streams to upload
+     * @return list of parts
+     */
+    private List<MultipartBody.Part> images(InputStream[] streams) {
+        List<MultipartBody.Part> parts = new ArrayList<>();
+        for (int i = 0; i < streams.length; i++) {
+            RequestBody body = Embeddings.stream(MediaType.parse("image/jpeg"), streams[i]);
+            parts.add(MultipartBody.Part.createFormData("data", "image" + i + ".jpg", body));
+        }
+
+        return parts;
+    }
+
+    /**
+     * Builds a request body that streams a file from disk in buffer sized reads.
+     *
+     * @param type content type
+     * @param path file path
+     * @return request body
+     */
+    private static RequestBody stream(MediaType type, Path path) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return type;
+            }
+
+            @Override
+            public long contentLength() throws IOException {
+                return Files.size(path);
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                try (Source source = Okio.source(path)) {
+                    sink.writeAll(source);
+                }
+            }
+        };
+    }
+
+    /**
+     * Builds a request body that streams an InputStream. The stream is closed after it's sent.
+     *
+     * @param type content type
+     * @param stream input stream
+     * @return request body
+     */
+    private static RequestBody stream(MediaType type, InputStream stream) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return type;
+            }
+
+            @Override
+            public boolean isOneShot() {
+                return true;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                try (Source source = Okio.source(stream)) {
+                    sink.writeAll(source);
+                }
+            }
+        };
+    }
+
+    /**
+     * Runs a stream upload and closes the streams if it fails. Streams are one-shot, so streams that weren't
+     * sent before a failure or cancellation would otherwise stay open.
+     *
+     * @param streams input streams
+     * @param upload function that starts the upload
+     * @return future that completes when all streams are uploaded
+     */
+    private static CompletableFuture<Void> closing(InputStream[] streams, Supplier<CompletableFuture<Void>> upload) {
+        CompletableFuture<Void> result;
+        try {
+            result = upload.get();
+        }
+        catch (RuntimeException ex) {
+            Embeddings.close(streams);
+            throw ex;
+        }
+
+        result.whenComplete((x, error) -> {
+            if (error != null) {
+                Embeddings.close(streams);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Closes input streams, ignoring errors.
+     *
+     * @param streams input streams
+     */
+    private static void close(InputStream[] streams) {
+        for (InputStream stream : streams) {
+            try {
+                stream.close();
+            }
+            catch (IOException ex) {
+                // Ignore, the upload already failed
+            }
+        }
+    }
+
+    /**
+     * Runs an addobject or addimage upload, applying the upload batching policy if set.
+     *
+     * @param image true for addimage, false for addobject
+     * @param parts data parts
+     * @param uids uid parts, can be null
+     * @param field field part, can be null
+     * @return future that completes when all parts are uploaded
+     */
+    private CompletableFuture<Void> upload(boolean image, List<MultipartBody.Part> parts, List<RequestBody> uids, RequestBody field) {
+        if (this.uploads == null) {
+            return API.async(this.uploadCall(image, parts, uids, field));
+        }
+
+        // Splitting requires one uid per data part
+        if (uids != null && uids.size() != parts.size()) {
+            throw new IllegalArgumentException("Expected " + parts.size() + " uids, received " + uids.size());
+        }
+
+        // Pair data and uid parts, so chunks keep them aligned
+        List<Object[]> inputs = new ArrayList<>(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            inputs.add(new Object[] {parts.get(i), uids != null ? uids.get(i) : null});
+        }
+
+        // Measuring inputs can fail for missing files
+        CompletableFuture<List<Void>> result;
+        try {
+            result = this.uploads.apply(inputs, chunk -> {
+                List<MultipartBody.Part> data = new ArrayList<>(chunk.size());
+                List<RequestBody> ids = uids != null ? new ArrayList<>(chunk.size()) : null;
+                for (Object[] input : chunk) {
+                    data.add((MultipartBody.Part)input[0]);
+                    if (ids != null) {
+                        ids.add((RequestBody)input[1]);
+                    }
+                }
+
+                return API.async(this.uploadCall(image, data, ids, field)).thenApply(x -> Collections.<Void>nCopies(chunk.size(), null));
+            });
+        }
+        catch (UncheckedIOException ex) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(ex.getCause());
+        }
+
+        return result.thenApply(x -> null);
+    }
+
+    /**
+     * Builds an addobject or addimage call.
+     *
+     * @param image true for addimage, false for addobject
+     * @param parts data parts
+     * @param uids uid parts, can be null
+     * @param field field part, can be null
+     * @return call
+     */
+    private Call<Void> uploadCall(boolean image, List<MultipartBody.Part> parts, List<RequestBody> uids, RequestBody field) {
+        return image ? this.api.addimage(parts, uids, field) : this.api.addobject(parts, uids, field);
+    }
+
+    /**
+     * Builds multipart uid parts.
+     *
+     * @param uid list of ids (optional, can be null)
+     * @return list of parts or null
+     */
+    private List<RequestBody> uids(List<String> uid) {
         List<RequestBody> uidBodies = null;
         if (uid != null) {
             uidBodies = new ArrayList<>();
@@ -396,9 +1540,17 @@ public class Embeddings {
             }
         }
 
-        RequestBody fieldBody = field != null ? RequestBody.create(MediaType.parse("text/plain"), field) : null;
+        return uidBodies;
+    }
 
-        this.api.addimage(parts, uidBodies, fieldBody).execute();
+    /**
+     * Builds multipart field part.
+     *
+     * @param field optional object field name (can be null)
+     * @return part or null
+     */
+    private RequestBody field(String field) {
+        return field != null ? RequestBody.create(MediaType.parse("text/plain"), field) : null;
     }
 
     /**
@@ -1,8 +1,14 @@
 package txtai;
 
 import java.io.IOException;
-import java.util.List;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 import retrofit2.http.Body;
@@ -14,6 +20,7 @@ import retrofit2.http.POST;
 @SuppressWarnings("rawtypes")
 public class Extractor {
     private Remote api;
+    private Batching batching;
 
     /**
      * API definition
@@ -103,6 +110,17 @@ public class Extractor {
         this.api = API.create(url, token, Remote.class);
     }
 
+    /**
+     * Sets the batching policy for extract calls. Large question queues are split into chunks that run
+     * concurrently against the same texts and answers are matched back to questions by name. Defaults to
+     * null, which sends the queue as a single request.
+     *
+     * @param batching batching policy, can be null
+     */
+    public void setBatching(Batching batching) {
+        this.batching = batching;
+    }
+
     /**
      * Extracts answers to input questions.
      * 
@@ -111,12 +129,70 @@ public class Extractor {
      * @return list of {name: value, answer: value}
      */
     public List<Answer> extract(List<Question> queue, List<String> texts) throws IOException {
+        if (this.batching != null) {
+            return API.get(this.extractAsync(queue, texts));
+        }
+
+        // Execute API call
+        return this.extractCall(queue, texts).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #extract(List, List)}.
+     *
+     * @param queue list of {name: value, query: value, question: value, snippet: value}
+     * @param texts list of text
+     * @return future list of {name: value, answer: value}
+     */
+    public CompletableFuture<List<Answer>> extractAsync(List<Question> queue, List<String> texts) {
+        if (this.batching != null) {
+            return this.batching.apply(queue, chunk -> API.async(this.extractCall(chunk, texts)).thenApply(answers -> Extractor.match(chunk, answers)));
+        }
+
+        return API.async(this.extractCall(queue, texts));
+    }
+
+    /**
+     * Orders answers to match questions by name. Repeated names are matched in order.
+     *
+     * @param queue list of questions
+     * @param answers list of answers
+     * @return list of answers, one per question in queue order
+     */
+    private static List<Answer> match(List<Question> queue, List<Answer> answers) {
+        Map<String, Deque<Answer>> names = new HashMap<>();
+        if (answers != null) {
+            for (Answer answer : answers) {
+                names.computeIfAbsent(answer.name, k -> new ArrayDeque<>()).add(answer);
+            }
+        }
+
+        List<Answer> results = new ArrayList<>(queue.size());
+        for (Question question : queue) {
+            Deque<Answer> matches = names.get(question.name);
+            if (matches == null || matches.isEmpty()) {
+                throw new UncheckedIOException(new IOException("Missing answer for question " + question.name));
+            }
+
+            results.add(matches.poll());
+        }
+
+        return results;
+    }
+
+    /**
+     * Builds an extract call.
+     *
+     * @param queue list of {name: value, query: value, question: value, snippet: value}
+     * @param texts list of text
+     * @return call
+     */
+    private Call<List<Answer>> extractCall(List<Question> queue, List<String> texts) {
         // Post parameters
         HashMap<String, Object> params = new HashMap<String, Object>();
         params.put("queue", queue);
         params.put("texts", texts);
 
-        // Execute API call
-        return this.api.extract(params).execute().body();
+        return this.api.extract(params);
     }
 }
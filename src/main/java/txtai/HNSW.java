@@ -0,0 +1,598 @@
+package txtai;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import txtai.Embeddings.SearchResult;
+
+/**
+ * Local approximate nearest neighbor index. Builds a Hierarchical Navigable Small World (HNSW) graph over
+ * primitive float vectors, such as vectors returned by Embeddings.vectors. Vectors are normalized and scored
+ * with inner product (cosine similarity).
+ *
+ * Searches run concurrently, inserts and deletes are exclusive.
+ */
+public class HNSW {
+    // File format header
+    private static final int MAGIC = 0x484e5357;
+    private static final int VERSION = 1;
+
+    // Graph parameters
+    private final int m;
+    private final int m0;
+    private final int efConstruction;
+    private final double ml;
+    private volatile int efSearch;
+
+    // Graph nodes
+    private final List<Node> nodes;
+    private final Map<String, Integer> ids;
+    private int dimensions;
+    private int entry;
+    private int deleted;
+
+    private final ReadWriteLock lock;
+    private final Random random;
+
+    /**
+     * Graph node.
+     */
+    private static class Node {
+        final String id;
+        final float[] vector;
+        final int[][] links;
+        final int[] sizes;
+        boolean deleted;
+
+        Node(String id, float[] vector, int level, int m, int m0) {
+            this.id = id;
+            this.vector = vector;
+            this.links = new int[level + 1][];
+            this.sizes = new int[level + 1];
+
+            for (int i = 0; i <= level; i++) {
+                this.links[i] = new int[(i == 0 ? m0 : m) + 1];
+            }
+        }
+
+        int level() {
+            return this.links.length - 1;
+        }
+    }
+
+    /**
+     * Search candidate.
+     */
+    private static class Candidate implements Comparable<Candidate> {
+        final int node;
+        final float score;
+
+        Candidate(int node, float score) {
+            this.node = node;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            return Float.compare(this.score, other.score);
+        }
+    }
+
+    /**
+     * Creates an HNSW index with default parameters (m = 16, efConstruction = 200, efSearch = 64).
+     */
+    public HNSW() {
+        this(16, 200, 64);
+    }
+
+    /**
+     * Creates an HNSW index.
+     *
+     * @param m maximum number of links per node on upper layers, base layer allows 2 * m
+     * @param efConstruction candidate list size used when inserting
+     * @param efSearch candidate list size used when searching
+     */
+    public HNSW(int m, int efConstruction, int efSearch) {
+        if (m < 2 || efConstruction < 1 || efSearch < 1) {
+            throw new IllegalArgumentException("Invalid HNSW parameters");
+        }
+
+        this.m = m;
+        this.m0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.ml = 1.0 / Math.log(m);
+
+        this.nodes = new ArrayList<>();
+        this.ids = new HashMap<>();
+        this.entry = -1;
+
+        this.lock = new ReentrantReadWriteLock();
+        this.random = new Random(42);
+    }
+
+    /**
+     * Sets the candidate list size used when searching. Higher values increase recall and latency.
+     *
+     * @param efSearch candidate list size
+     */
+    public void setEfSearch(int efSearch) {
+        if (efSearch < 1) {
+            throw new IllegalArgumentException("efSearch must be positive");
+        }
+
+        this.efSearch = efSearch;
+    }
+
+    /**
+     * Transforms texts with embeddings and adds the resulting vectors.
+     *
+     * @param embeddings embeddings instance
+     * @param ids list of document ids
+     * @param texts list of document text
+     */
+    public void add(Embeddings embeddings, List<String> ids, List<String> texts) throws IOException {
+        this.add(ids, embeddings.vectors(texts));
+    }
+
+    /**
+     * Adds a batch of vectors.
+     *
+     * @param ids list of ids
+     * @param vectors vectors, one row per id
+     */
+    public void add(List<String> ids, float[][] vectors) {
+        if (ids.size() != vectors.length) {
+            throw new IllegalArgumentException("ids and vectors must be the same length");
+        }
+
+        this.lock.writeLock().lock();
+        try {
+            for (int i = 0; i < vectors.length; i++) {
+                this.insert(ids.get(i), vectors[i]);
+            }
+        }
+        finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a vector. If id already exists, the previous vector is replaced.
+     *
+     * @param id id
+     * @param vector vector
+     */
+    public void add(String id, float[] vector) {
+        this.lock.writeLock().lock();
+        try {
+            this.insert(id, vector);
+        }
+        finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes a vector. Deleted nodes are kept in the graph for navigation but are excluded from results.
+     *
+     * @param id id
+     * @return true if id was found
+     */
+    public boolean delete(String id) {
+        this.lock.writeLock().lock();
+        try {
+            Integer node = this.ids.remove(id);
+            if (node != null) {
+                this.nodes.get(node).deleted = true;
+                this.deleted++;
+            }
+
+            return node != null;
+        }
+        finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of live vectors in this index.
+     *
+     * @return number of vectors
+     */
+    public int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.nodes.size() - this.deleted;
+        }
+        finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Transforms query with embeddings and searches this index.
+     *
+     * @param embeddings embeddings instance
+     * @param query query text
+     * @param limit maximum results
+     * @return list of {id: value, score: value} sorted by highest score
+     */
+    public List<SearchResult> search(Embeddings embeddings, String query, int limit) throws IOException {
+        return this.search(embeddings.vector(query), limit);
+    }
+
+    /**
+     * Finds the vectors most similar to query.
+     *
+     * @param query query vector
+     * @param limit maximum results
+     * @return list of {id: value, score: value} sorted by highest score
+     */
+    public List<SearchResult> search(float[] query, int limit) {
+        this.lock.readLock().lock();
+        try {
+            List<SearchResult> results = new ArrayList<>();
+            if (this.entry == -1 || limit < 1) {
+                return results;
+            }
+
+            if (query.length != this.dimensions) {
+                throw new IllegalArgumentException("Expected " + this.dimensions + " dimensions, received " + query.length);
+            }
+
+            float[] vector = Vectors.normalize(query);
+
+            // Greedy search through upper layers
+            int current = this.entry;
+            for (int level = this.nodes.get(this.entry).level(); level > 0; level--) {
+                current = this.greedy(vector, current, level);
+            }
+
+            // Expand search on base layer. Widen candidate list to account for deleted nodes.
+            int ef = Math.max(this.efSearch, limit) + Math.min(this.deleted, limit);
+            List<Candidate> candidates = this.layer(vector, current, ef, 0);
+            Collections.sort(candidates, Collections.reverseOrder());
+
+            for (Candidate candidate : candidates) {
+                Node node = this.nodes.get(candidate.node);
+                if (!node.deleted) {
+                    results.add(new SearchResult(node.id, candidate.score));
+                    if (results.size() == limit) {
+                        break;
+                    }
+                }
+            }
+
+            return results;
+        }
+        finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Saves this index to file.
+     *
+     * @param file output file
+     */
+    public void save(File file) throws IOException {
+        this.lock.readLock().lock();
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(this.m);
+            output.writeInt(this.efConstruction);
+            output.writeInt(this.efSearch);
+            output.writeInt(this.dimensions);
+            output.writeInt(this.nodes.size());
+            output.writeInt(this.entry);
+
+            for (Node node : this.nodes) {
+                output.writeUTF(node.id);
+                output.writeBoolean(node.deleted);
+                output.writeInt(node.level());
+
+                for (float value : node.vector) {
+                    output.writeFloat(value);
+                }
+
+                for (int level = 0; level <= node.level(); level++) {
+                    output.writeInt(node.sizes[level]);
+                    for (int i = 0; i < node.sizes[level]; i++) {
+                        output.writeInt(node.links[level][i]);
+                    }
+                }
+            }
+        }
+        finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads an index from file.
+     *
+     * @param file input file
+     * @return HNSW index
+     */
+    public static HNSW load(File file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Invalid HNSW file: " + file);
+            }
+
+            HNSW index = new HNSW(input.readInt(), input.readInt(), input.readInt());
+            index.dimensions = input.readInt();
+
+            int count = input.readInt();
+            index.entry = input.readInt();
+
+            for (int n = 0; n < count; n++) {
+                String id = input.readUTF();
+                boolean deleted = input.readBoolean();
+                int level = input.readInt();
+
+                float[] vector = new float[index.dimensions];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = input.readFloat();
+                }
+
+                Node node = new Node(id, vector, level, index.m, index.m0);
+                for (int l = 0; l <= level; l++) {
+                    node.sizes[l] = input.readInt();
+                    for (int i = 0; i < node.sizes[l]; i++) {
+                        node.links[l][i] = input.readInt();
+                    }
+                }
+
+                node.deleted = deleted;
+                index.nodes.add(node);
+
+                if (deleted) {
+                    index.deleted++;
+                }
+                else {
+                    index.ids.put(id, n);
+                }
+            }
+
+            return index;
+        }
+    }
+
+    /**
+     * Inserts a vector. Must be called while holding the write lock.
+     *
+     * @param id id
+     * @param input input vector
+     */
+    private void insert(String id, float[] input) {
+        if (this.dimensions == 0) {
+            this.dimensions = input.length;
+        }
+        else if (input.length != this.dimensions) {
+            throw new IllegalArgumentException("Expected " + this.dimensions + " dimensions, received " + input.length);
+        }
+
+        // Replace existing vector
+        Integer existing = this.ids.get(id);
+        if (existing != null) {
+            this.nodes.get(existing).deleted = true;
+            this.deleted++;
+        }
+
+        int level = (int)(-Math.log(1.0 - this.random.nextDouble()) * this.ml);
+        int index = this.nodes.size();
+
+        Node node = new Node(id, Vectors.normalize(input), level, this.m, this.m0);
+        this.nodes.add(node);
+        this.ids.put(id, index);
+
+        // First node
+        if (this.entry == -1) {
+            this.entry = index;
+            return;
+        }
+
+        int current = this.entry;
+        int top = this.nodes.get(this.entry).level();
+
+        // Greedy search through layers above the new node's level
+        for (int l = top; l > level; l--) {
+            current = this.greedy(node.vector, current, l);
+        }
+
+        // Link node on each shared layer
+        for (int l = Math.min(level, top); l >= 0; l--) {
+            List<Candidate> candidates = this.layer(node.vector, current, this.efConstruction, l);
+            List<Candidate> neighbors = this.select(candidates, l == 0 ? this.m0 : this.m);
+
+            for (Candidate neighbor : neighbors) {
+                this.link(index, neighbor.node, l);
+                this.link(neighbor.node, index, l);
+            }
+
+            // Start next layer from best candidate
+            current = Collections.max(candidates).node;
+        }
+
+        if (level > top) {
+            this.entry = index;
+        }
+    }
+
+    /**
+     * Adds a directed link. When the source node exceeds the layer maximum, its farthest link is dropped.
+     * New nodes select their own links with the diversity heuristic, reverse links are pruned by distance only
+     * which keeps inserts fast with little loss in recall.
+     *
+     * @param source source node
+     * @param target target node
+     * @param level graph layer
+     */
+    private void link(int source, int target, int level) {
+        Node node = this.nodes.get(source);
+        int max = level == 0 ? this.m0 : this.m;
+
+        node.links[level][node.sizes[level]++] = target;
+
+        if (node.sizes[level] > max) {
+            List<Candidate> candidates = new ArrayList<>();
+            for (int i = 0; i < node.sizes[level]; i++) {
+                int neighbor = node.links[level][i];
+                candidates.add(new Candidate(neighbor, Vectors.dot(node.vector, this.nodes.get(neighbor).vector)));
+            }
+
+            // Drop the farthest link
+            Collections.sort(candidates, Collections.reverseOrder());
+            node.sizes[level] = max;
+            for (int i = 0; i < max; i++) {
+                node.links[level][i] = candidates.get(i).node;
+            }
+        }
+    }
+
+    /**
+     * Selects up to max neighbors using the HNSW diversity heuristic. Candidates closer to an already selected
+     * neighbor than to the base vector are skipped first, then used to fill any remaining slots.
+     *
+     * @param candidates candidates scored against the base vector
+     * @param max maximum number of neighbors
+     * @return selected neighbors
+     */
+    private List<Candidate> select(List<Candidate> candidates, int max) {
+        List<Candidate> sorted = new ArrayList<>(candidates);
+        Collections.sort(sorted, Collections.reverseOrder());
+
+        List<Candidate> selected = new ArrayList<>();
+        List<Candidate> skipped = new ArrayList<>();
+
+        for (Candidate candidate : sorted) {
+            if (selected.size() >= max) {
+                break;
+            }
+
+            float[] vector = this.nodes.get(candidate.node).vector;
+
+            boolean diverse = true;
+            for (Candidate neighbor : selected) {
+                if (Vectors.dot(vector, this.nodes.get(neighbor.node).vector) > candidate.score) {
+                    diverse = false;
+                    break;
+                }
+            }
+
+            if (diverse) {
+                selected.add(candidate);
+            }
+            else {
+                skipped.add(candidate);
+            }
+        }
+
+        // Keep pruned connections to fill remaining slots
+        for (int i = 0; i < skipped.size() && selected.size() < max; i++) {
+            selected.add(skipped.get(i));
+        }
+
+        return selected;
+    }
+
+    /**
+     * Greedy search for the closest node on a layer.
+     *
+     * @param vector query vector
+     * @param start start node
+     * @param level graph layer
+     * @return closest node
+     */
+    private int greedy(float[] vector, int start, int level) {
+        int current = start;
+        float best = Vectors.dot(vector, this.nodes.get(current).vector);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            Node node = this.nodes.get(current);
+            for (int i = 0; i < node.sizes[level]; i++) {
+                int neighbor = node.links[level][i];
+                float score = Vectors.dot(vector, this.nodes.get(neighbor).vector);
+                if (score > best) {
+                    best = score;
+                    current = neighbor;
+                    changed = true;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Beam search over a single layer.
+     *
+     * @param vector query vector
+     * @param start start node
+     * @param ef candidate list size
+     * @param level graph layer
+     * @return up to ef closest nodes
+     */
+    private List<Candidate> layer(float[] vector, int start, int ef, int level) {
+        BitSet visited = new BitSet(this.nodes.size());
+        visited.set(start);
+
+        // Candidates to expand (best first) and current results (worst first)
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Collections.reverseOrder());
+        PriorityQueue<Candidate> results = new PriorityQueue<>();
+
+        Candidate first = new Candidate(start, Vectors.dot(vector, this.nodes.get(start).vector));
+        candidates.add(first);
+        results.add(first);
+
+        while (!candidates.isEmpty()) {
+            Candidate candidate = candidates.poll();
+            if (results.size() >= ef && candidate.score < results.peek().score) {
+                break;
+            }
+
+            Node node = this.nodes.get(candidate.node);
+            for (int i = 0; i < node.sizes[level]; i++) {
+                int neighbor = node.links[level][i];
+                if (!visited.get(neighbor)) {
+                    visited.set(neighbor);
+
+                    float score = Vectors.dot(vector, this.nodes.get(neighbor).vector);
+                    if (results.size() < ef || score > results.peek().score) {
+                        Candidate next = new Candidate(neighbor, score);
+                        candidates.add(next);
+                        results.add(next);
+
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        return new ArrayList<>(results);
+    }
+}
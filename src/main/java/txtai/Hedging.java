@@ -0,0 +1,280 @@
+package txtai;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Call;
+
+/**
+ * Hedged requests for idempotent read calls. If a call hasn't answered within a delay, an identical backup
+ * call is sent. The first successful answer wins and the other call is cancelled. The delay tracks a latency
+ * percentile per endpoint, so only the slow tail is hedged.
+ *
+ * A token budget caps the extra load. Each call earns ratio tokens and each hedge spends one token, so at most
+ * ratio extra requests are sent per call over time.
+ */
+public class Hedging {
+    // Latency samples per window, histograms rotate after this many samples
+    private static final int WINDOW = 1000;
+
+    // Minimum samples before percentile delays are used
+    private static final int SAMPLES = 20;
+
+    // Maximum banked tokens
+    private static final double BURST = 10;
+
+    private final double percentile;
+    private final double ratio;
+    private final long minimum;
+    private final ScheduledExecutorService timer;
+
+    // Latency tracking by endpoint
+    private final Map<String, Latency> latencies;
+
+    // Hedge budget
+    private double tokens;
+
+    /**
+     * Latency window for an endpoint. Keeps the current and previous histograms, so percentiles follow
+     * recent latency.
+     */
+    private static class Latency {
+        volatile MetricsRegistry.Histogram current = new MetricsRegistry.Histogram();
+        volatile MetricsRegistry.Histogram previous;
+
+        void record(long value) {
+            MetricsRegistry.Histogram histogram = this.current;
+            histogram.record(value);
+
+            if (histogram.count() >= WINDOW) {
+                synchronized (this) {
+                    if (this.current == histogram) {
+                        this.previous = histogram;
+                        this.current = new MetricsRegistry.Histogram();
+                    }
+                }
+            }
+        }
+
+        MetricsRegistry.Histogram histogram() {
+            MetricsRegistry.Histogram previous = this.previous;
+            return previous != null ? previous : this.current;
+        }
+    }
+
+    /**
+     * Creates a Hedging instance with a p95 delay, 10% budget and 10 ms minimum delay.
+     */
+    public Hedging() {
+        this(95, 0.1, 10, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a Hedging instance.
+     *
+     * @param percentile latency percentile used as hedge delay, between 0 and 100
+     * @param ratio maximum extra requests per call, for example 0.1 for 10%
+     * @param minimum minimum hedge delay, also used until enough latency samples are collected
+     * @param unit minimum time unit
+     */
+    public Hedging(double percentile, double ratio, long minimum, TimeUnit unit) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+
+        this.percentile = percentile;
+        this.ratio = ratio;
+        this.minimum = unit.toNanos(minimum);
+        this.latencies = new ConcurrentHashMap<>();
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "txtai-hedging");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs a call with hedging. The call must be idempotent.
+     *
+     * @param endpoint endpoint name, latency is tracked per endpoint
+     * @param call API call
+     * @return future response body
+     */
+    public <T> CompletableFuture<T> apply(String endpoint, Call<T> call) {
+        Latency latency = this.latencies.computeIfAbsent(endpoint, key -> new Latency());
+        this.deposit();
+
+        return new Run<>(latency, call).start(this.delay(latency));
+    }
+
+    /**
+     * Current hedge delay for an endpoint.
+     *
+     * @param endpoint endpoint name
+     * @param unit time unit
+     * @return delay
+     */
+    public long delay(String endpoint, TimeUnit unit) {
+        Latency latency = this.latencies.get(endpoint);
+        return unit.convert(latency != null ? this.delay(latency) : this.minimum, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Calculates the hedge delay for an endpoint.
+     *
+     * @param latency endpoint latency
+     * @return delay in nanoseconds
+     */
+    private long delay(Latency latency) {
+        MetricsRegistry.Histogram histogram = latency.histogram();
+        if (histogram.count() < SAMPLES) {
+            return this.minimum;
+        }
+
+        return Math.max(this.minimum, (long)histogram.percentile(this.percentile));
+    }
+
+    /**
+     * Adds budget for a call.
+     */
+    private synchronized void deposit() {
+        this.tokens = Math.min(BURST, this.tokens + this.ratio);
+    }
+
+    /**
+     * Spends budget for a hedge.
+     *
+     * @return true if budget was available
+     */
+    private synchronized boolean withdraw() {
+        if (this.tokens >= 1) {
+            this.tokens -= 1;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Single hedged call.
+     */
+    private class Run<T> {
+        private final Latency latency;
+        private final Call<T> call;
+        private final CompletableFuture<T> result;
+
+        // Attempts and the hedge timer
+        private CompletableFuture<T> primary;
+        private CompletableFuture<T> backup;
+        private ScheduledFuture<?> hedge;
+        private int pending;
+
+        Run(Latency latency, Call<T> call) {
+            this.latency = latency;
+            this.call = call;
+
+            // Cancelling the result cancels all attempts
+            this.result = new CompletableFuture<T>() {
+                @Override
+                public boolean cancel(boolean interrupt) {
+                    boolean cancelled = super.cancel(interrupt);
+                    Run.this.cleanup();
+                    return cancelled;
+                }
+            };
+        }
+
+        /**
+         * Sends the first attempt and schedules the hedge.
+         *
+         * @param delay hedge delay in nanoseconds
+         * @return future result
+         */
+        CompletableFuture<T> start(long delay) {
+            CompletableFuture<T> primary = this.send(this.call);
+            synchronized (this) {
+                this.primary = primary;
+                if (!this.result.isDone()) {
+                    this.hedge = Hedging.this.timer.schedule(this::backup, delay, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            return this.result;
+        }
+
+        /**
+         * Sends the backup attempt if the call is still running and budget allows.
+         */
+        private void backup() {
+            synchronized (this) {
+                if (this.result.isDone() || !Hedging.this.withdraw()) {
+                    return;
+                }
+            }
+
+            CompletableFuture<T> backup = this.send(this.call.clone());
+            synchronized (this) {
+                this.backup = backup;
+                if (this.result.isDone()) {
+                    backup.cancel(true);
+                }
+            }
+        }
+
+        /**
+         * Sends an attempt.
+         *
+         * @param call call
+         * @return future attempt
+         */
+        private CompletableFuture<T> send(Call<T> call) {
+            synchronized (this) {
+                this.pending++;
+            }
+
+            long start = System.nanoTime();
+            CompletableFuture<T> attempt = API.async(call);
+            attempt.whenComplete((value, error) -> {
+                boolean last;
+                synchronized (this) {
+                    last = --this.pending == 0;
+                }
+
+                if (error == null) {
+                    this.latency.record(System.nanoTime() - start);
+                    if (this.result.complete(value)) {
+                        this.cleanup();
+                    }
+                }
+                else if (last && !attempt.isCancelled()) {
+                    // Only fail when no other attempt is running
+                    this.result.completeExceptionally(error);
+                    this.cleanup();
+                }
+            });
+
+            return attempt;
+        }
+
+        /**
+         * Cancels the hedge timer and any attempt still running.
+         */
+        private synchronized void cleanup() {
+            if (this.hedge != null) {
+                this.hedge.cancel(false);
+            }
+            if (this.primary != null && !this.primary.isDone()) {
+                this.primary.cancel(true);
+            }
+            if (this.backup != null && !this.backup.isDone()) {
+                this.backup.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package txtai;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import txtai.API.IndexResult;
+
+/**
+ * Columnar index results. Stores hits as parallel index and score arrays decoded directly from JSON, without
+ * creating an object per hit. Use {@link #list()} to get an {@link IndexResult} view when needed.
+ */
+public class IndexResults extends ScoredResults<IndexResult> {
+    private final int[] ids;
+
+    /**
+     * Creates an IndexResults instance.
+     *
+     * @param ids indices
+     * @param scores scores, same length as ids
+     */
+    public IndexResults(int[] ids, double[] scores) {
+        super(ids.length, scores);
+        this.ids = ids;
+    }
+
+    /**
+     * Gets the index of a hit.
+     *
+     * @param index hit index
+     * @return index, for example the position in the input texts or labels
+     */
+    public int id(int index) {
+        return this.ids[index];
+    }
+
+    /**
+     * Gets all indices. Returns the backing array, it must not be modified.
+     *
+     * @return indices sorted by highest score
+     */
+    public int[] ids() {
+        return this.ids;
+    }
+
+    @Override
+    protected IndexResult element(int index) {
+        return new IndexResult(this.ids[index], this.score(index));
+    }
+
+    @Override
+    protected Object key(int index) {
+        return this.ids[index];
+    }
+
+    /**
+     * Adapter for a JSON array of {id: value, score: value} objects. Other fields are skipped.
+     */
+    public static class Adapter extends ScoredResults.Adapter<IndexResults, int[]> {
+        @Override
+        protected void write(JsonWriter writer, IndexResults results, int index) throws IOException {
+            writer.value(results.ids[index]);
+        }
+
+        @Override
+        protected void read(JsonReader reader, int[] ids, int index) throws IOException {
+            ids[index] = reader.nextInt();
+        }
+
+        @Override
+        protected int[] column(int capacity) {
+            return new int[capacity];
+        }
+
+        @Override
+        protected int[] copy(int[] ids, int length) {
+            return Arrays.copyOf(ids, length);
+        }
+
+        @Override
+        protected IndexResults create(int[] ids, double[] scores) {
+            return new IndexResults(ids, scores);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package txtai;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+
+import txtai.Embeddings.Document;
+
+/**
+ * Buffered streaming writer for an embeddings index. Documents are added one at a time and sent with
+ * Embeddings.add when a document count or byte threshold is reached or a time interval passes. Batches
+ * are sent in the background with a bounded number in flight. Adding blocks when that limit is reached.
+ * Closing the writer flushes remaining documents and runs an index or upsert operation.
+ */
+public class IndexWriter implements Closeable {
+    private static final Gson GSON = new Gson();
+
+    private final Embeddings embeddings;
+    private final int documents;
+    private final long bytes;
+    private final int inflight;
+    private final boolean upsert;
+
+    // Bounds number of batches in flight
+    private final Semaphore permits;
+
+    // Runs interval flushes
+    private final ScheduledExecutorService timer;
+
+    // Current batch
+    private List<Object> buffer;
+    private long size;
+
+    // First background error
+    private volatile Throwable error;
+    private boolean closed;
+
+    /**
+     * Creates an IndexWriter with default settings. Batches are sent every 1000 documents, 4 MB or second,
+     * with up to 4 batches in flight. Closing the writer builds a new index.
+     *
+     * @param embeddings embeddings instance
+     */
+    public IndexWriter(Embeddings embeddings) {
+        this(embeddings, 1000, 4L * 1024 * 1024, 1, TimeUnit.SECONDS, 4, false);
+    }
+
+    /**
+     * Creates an IndexWriter.
+     *
+     * @param embeddings embeddings instance
+     * @param documents maximum number of documents per batch
+     * @param bytes maximum estimated batch size in bytes
+     * @param interval maximum time a document is buffered before it's sent, 0 disables interval flushes
+     * @param unit interval time unit
+     * @param inflight maximum number of batches in flight
+     * @param upsert runs an upsert on close if true, otherwise builds a new index
+     */
+    public IndexWriter(Embeddings embeddings, int documents, long bytes, long interval, TimeUnit unit, int inflight, boolean upsert) {
+        if (documents < 1 || bytes < 1 || inflight < 1) {
+            throw new IllegalArgumentException("documents, bytes and inflight must be positive");
+        }
+
+        this.embeddings = embeddings;
+        this.documents = documents;
+        this.bytes = bytes;
+        this.inflight = inflight;
+        this.upsert = upsert;
+
+        this.permits = new Semaphore(inflight);
+        this.buffer = new ArrayList<>();
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "txtai-indexwriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (interval > 0) {
+            this.timer.scheduleWithFixedDelay(this::tick, interval, interval, unit);
+        }
+    }
+
+    /**
+     * Adds a document. Blocks when the maximum number of batches are in flight.
+     *
+     * @param document document, such as a {@link Document}
+     */
+    public synchronized void add(Object document) throws IOException {
+        this.check();
+
+        if (this.closed) {
+            throw new IOException("IndexWriter is closed");
+        }
+
+        this.buffer.add(document);
+        this.size += this.estimate(document);
+
+        if (this.buffer.size() >= this.documents || this.size >= this.bytes) {
+            this.send();
+        }
+    }
+
+    /**
+     * Sends buffered documents and waits for all in-flight batches to complete.
+     */
+    public void flush() throws IOException {
+        synchronized (this) {
+            this.send();
+        }
+
+        // Wait for in-flight batches
+        try {
+            this.permits.acquire(this.inflight);
+            this.permits.release(this.inflight);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        }
+
+        this.check();
+    }
+
+    /**
+     * Flushes remaining documents, then runs an upsert or index operation.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+
+            this.closed = true;
+        }
+
+        try {
+            this.timer.shutdownNow();
+            this.flush();
+
+            if (this.upsert) {
+                this.embeddings.upsert();
+            }
+            else {
+                this.embeddings.index();
+            }
+        }
+        finally {
+            this.timer.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends the current buffer as a background batch. Must be called while holding the writer lock.
+     */
+    private void send() throws IOException {
+        if (this.buffer.isEmpty()) {
+            return;
+        }
+
+        List<Object> batch = this.buffer;
+        this.buffer = new ArrayList<>();
+        this.size = 0;
+
+        // Backpressure - wait for a free slot
+        try {
+            this.permits.acquire();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        }
+
+        try {
+            this.embeddings.addAsync(batch).whenComplete((result, e) -> {
+                if (e != null && this.error == null) {
+                    this.error = e;
+                }
+
+                this.permits.release();
+            });
+        }
+        catch (RuntimeException ex) {
+            this.permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Interval flush.
+     */
+    private synchronized void tick() {
+        try {
+            this.send();
+        }
+        catch (IOException | RuntimeException ex) {
+            if (this.error == null) {
+                this.error = ex;
+            }
+        }
+    }
+
+    /**
+     * Rethrows the first background error, if any.
+     */
+    private void check() throws IOException {
+        Throwable e = this.error;
+        if (e != null) {
+            throw e instanceof IOException ? (IOException)e : new IOException(e);
+        }
+    }
+
+    /**
+     * Estimates the serialized size of a document.
+     *
+     * @param document document
+     * @return estimated size in bytes
+     */
+    private long estimate(Object document) {
+        if (document instanceof Document) {
+            Document d = (Document)document;
+            return (d.id != null ? d.id.length() : 0) + (d.text != null ? d.text.length() : 0) + 24;
+        }
+
+        return GSON.toJson(document).length();
+    }
+}
@@ -0,0 +1,479 @@
+package txtai;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import txtai.Embeddings.Document;
+
+/**
+ * Staged document ingestion pipeline: Textractor, then Segmentation, then Embeddings. Each stage has its own
+ * workers and the stages are connected with bounded queues, so extraction of one batch overlaps with
+ * segmentation and indexing of earlier batches. Full queues block upstream stages.
+ *
+ * Each segment is added as a document with id "file#n", where n is the segment index within the file.
+ * Segmentation is optional, without it each file is added as a single document. The pipeline only adds
+ * documents, call {@link Embeddings#index()} or {@link Embeddings#upsert()} afterwards.
+ */
+public class Ingestion {
+    // End of stream marker
+    private static final Object END = new Object();
+
+    // Queue poll interval used to check for failures
+    private static final long POLL = 100;
+
+    private final Textractor textractor;
+    private final Segmentation segmentation;
+    private final Embeddings embeddings;
+
+    private final int batch;
+    private final int capacity;
+    private final int extractors;
+    private final int segmenters;
+    private final int indexers;
+
+    // Current run
+    private volatile Run run;
+
+    /**
+     * Statistics for a pipeline stage.
+     */
+    public static class Stats {
+        // Stage name
+        public final String name;
+
+        // Processed batches and items
+        public final long batches;
+        public final long inputs;
+        public final long outputs;
+
+        // Time spent in stage calls, summed over workers, and time since the run started
+        public final long busy;
+        public final long elapsed;
+
+        // Input queue depth, current and maximum observed
+        public final int depth;
+        public final int maxdepth;
+
+        Stats(Stage stage, long elapsed) {
+            this.name = stage.name;
+            this.batches = stage.batches.get();
+            this.inputs = stage.inputs.get();
+            this.outputs = stage.outputs.get();
+            this.busy = stage.busy.get();
+            this.elapsed = elapsed;
+            this.depth = stage.queue.size();
+            this.maxdepth = stage.maxdepth.get();
+        }
+
+        /**
+         * Stage throughput.
+         *
+         * @return input items per second since the run started
+         */
+        public double throughput() {
+            return this.elapsed > 0 ? this.inputs * 1e9 / this.elapsed : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s batches=%d inputs=%d outputs=%d throughput=%.1f/s busy=%.1fs depth=%d max=%d",
+                this.name, this.batches, this.inputs, this.outputs, this.throughput(), this.busy / 1e9, this.depth, this.maxdepth);
+        }
+    }
+
+    /**
+     * Creates an Ingestion pipeline with batches of 32 files, queues of 4 batches, 2 extraction workers,
+     * 2 segmentation workers and 1 indexing worker.
+     *
+     * @param textractor Textractor instance
+     * @param segmentation Segmentation instance, can be null
+     * @param embeddings Embeddings instance
+     */
+    public Ingestion(Textractor textractor, Segmentation segmentation, Embeddings embeddings) {
+        this(textractor, segmentation, embeddings, 32, 4, 2, 2, 1);
+    }
+
+    /**
+     * Creates an Ingestion pipeline.
+     *
+     * @param textractor Textractor instance
+     * @param segmentation Segmentation instance, can be null
+     * @param embeddings Embeddings instance
+     * @param batch number of files per batch
+     * @param capacity maximum number of batches queued between stages
+     * @param extractors number of extraction workers
+     * @param segmenters number of segmentation workers
+     * @param indexers number of indexing workers
+     */
+    public Ingestion(Textractor textractor, Segmentation segmentation, Embeddings embeddings, int batch, int capacity,
+                     int extractors, int segmenters, int indexers) {
+        if (batch < 1 || capacity < 1 || extractors < 1 || segmenters < 1 || indexers < 1) {
+            throw new IllegalArgumentException("batch, capacity and worker counts must be positive");
+        }
+
+        this.textractor = textractor;
+        this.segmentation = segmentation;
+        this.embeddings = embeddings;
+        this.batch = batch;
+        this.capacity = capacity;
+        this.extractors = extractors;
+        this.segmenters = segmenters;
+        this.indexers = indexers;
+    }
+
+    /**
+     * Runs the pipeline over a list of files.
+     *
+     * @param files list of files
+     * @return final stage statistics
+     */
+    public List<Stats> run(List<String> files) throws IOException {
+        return this.run(files.iterator());
+    }
+
+    /**
+     * Runs the pipeline over files. Blocks until all files are added or a stage fails. The first stage
+     * failure stops the pipeline and is rethrown.
+     *
+     * @param files files iterator, consumed lazily as the pipeline has room
+     * @return final stage statistics
+     */
+    public List<Stats> run(Iterator<String> files) throws IOException {
+        Run run = new Run();
+        this.run = run;
+
+        return run.execute(files);
+    }
+
+    /**
+     * Statistics for the current or last run. Can be called from other threads while the pipeline runs.
+     *
+     * @return stage statistics, empty if the pipeline hasn't run
+     */
+    public List<Stats> stats() {
+        Run run = this.run;
+        return run != null ? run.stats() : new ArrayList<>();
+    }
+
+    /**
+     * Single stage call.
+     */
+    private interface Step {
+        Object apply(Object input) throws IOException;
+    }
+
+    /**
+     * Live stage counters.
+     */
+    private static class Stage {
+        final String name;
+        final BlockingQueue<Object> queue;
+        final AtomicLong batches = new AtomicLong();
+        final AtomicLong inputs = new AtomicLong();
+        final AtomicLong outputs = new AtomicLong();
+        final AtomicLong busy = new AtomicLong();
+        final AtomicInteger maxdepth = new AtomicInteger();
+
+        Stage(String name, int capacity) {
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    /**
+     * File batch with extracted text.
+     */
+    private static class Extracted {
+        final List<String> files;
+        final List<Object> texts;
+
+        Extracted(List<String> files, List<Object> texts) {
+            this.files = files;
+            this.texts = texts;
+        }
+    }
+
+    /**
+     * Single pipeline execution.
+     */
+    private class Run {
+        private final Stage extract;
+        private final Stage segment;
+        private final Stage index;
+        private final AtomicReference<Throwable> error;
+        private final long start;
+
+        Run() {
+            this.extract = new Stage("extract", capacity);
+            this.segment = new Stage("segment", capacity);
+            this.index = new Stage("index", capacity);
+            this.error = new AtomicReference<>();
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * Runs the pipeline.
+         *
+         * @param files files iterator
+         * @return final stage statistics
+         */
+        List<Stats> execute(Iterator<String> files) throws IOException {
+            List<Thread> threads = new ArrayList<>();
+            threads.addAll(this.workers(this.extract, this.segment, extractors, segmenters, this::extract));
+            threads.addAll(this.workers(this.segment, this.index, segmenters, indexers, this::segment));
+            threads.addAll(this.workers(this.index, null, indexers, 0, this::index));
+
+            try {
+                // Read files into batches
+                List<String> chunk = new ArrayList<>(batch);
+                while (files.hasNext() && this.error.get() == null) {
+                    chunk.add(files.next());
+                    if (chunk.size() == batch) {
+                        this.put(this.extract, chunk);
+                        chunk = new ArrayList<>(batch);
+                    }
+                }
+
+                if (!chunk.isEmpty()) {
+                    this.put(this.extract, chunk);
+                }
+
+                for (int i = 0; i < extractors; i++) {
+                    this.put(this.extract, END);
+                }
+
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            }
+            catch (InterruptedException ex) {
+                this.fail(ex);
+                Thread.currentThread().interrupt();
+            }
+            catch (RuntimeException ex) {
+                this.fail(ex);
+            }
+
+            Throwable error = this.error.get();
+            if (error instanceof IOException) {
+                throw (IOException)error;
+            }
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException)error;
+            }
+            if (error != null) {
+                throw new IOException(error);
+            }
+
+            return this.stats();
+        }
+
+        /**
+         * Gets statistics for all stages.
+         *
+         * @return stage statistics
+         */
+        List<Stats> stats() {
+            long elapsed = System.nanoTime() - this.start;
+
+            List<Stats> stats = new ArrayList<>();
+            stats.add(new Stats(this.extract, elapsed));
+            if (segmentation != null) {
+                stats.add(new Stats(this.segment, elapsed));
+            }
+            stats.add(new Stats(this.index, elapsed));
+
+            return stats;
+        }
+
+        /**
+         * Extracts text for a batch of files.
+         *
+         * @param input list of files
+         * @return extracted batch
+         */
+        @SuppressWarnings("unchecked")
+        private Object extract(Object input) throws IOException {
+            List<String> files = (List<String>)input;
+            List<Object> texts = textractor.batchtextract(files);
+            if (texts == null || texts.size() != files.size()) {
+                throw new IOException("Expected " + files.size() + " extracted texts, received " + (texts != null ? texts.size() : 0));
+            }
+
+            this.extract.inputs.addAndGet(files.size());
+            this.extract.outputs.addAndGet(texts.size());
+
+            return new Extracted(files, texts);
+        }
+
+        /**
+         * Segments extracted text into documents.
+         *
+         * @param input extracted batch
+         * @return list of documents
+         */
+        private Object segment(Object input) throws IOException {
+            Extracted extracted = (Extracted)input;
+
+            List<String> texts = new ArrayList<>(extracted.texts.size());
+            for (Object text : extracted.texts) {
+                texts.add(Ingestion.text(text));
+            }
+
+            List<Object> segments = segmentation != null ? segmentation.batchsegment(texts) : new ArrayList<>(texts);
+            if (segments == null || segments.size() != texts.size()) {
+                throw new IOException("Expected " + texts.size() + " segmented texts, received " + (segments != null ? segments.size() : 0));
+            }
+
+            List<Document> documents = new ArrayList<>();
+            for (int i = 0; i < segments.size(); i++) {
+                Object segment = segments.get(i);
+                List<?> parts = segment instanceof List ? (List<?>)segment : Collections.singletonList(segment);
+
+                for (int n = 0; n < parts.size(); n++) {
+                    documents.add(new Document(extracted.files.get(i) + "#" + n, Ingestion.text(parts.get(n))));
+                }
+            }
+
+            this.segment.inputs.addAndGet(texts.size());
+            this.segment.outputs.addAndGet(documents.size());
+
+            return documents;
+        }
+
+        /**
+         * Adds documents to the embeddings index.
+         *
+         * @param input list of documents
+         * @return null
+         */
+        private Object index(Object input) throws IOException {
+            List<?> documents = (List<?>)input;
+            if (!documents.isEmpty()) {
+                embeddings.add(documents);
+            }
+
+            this.index.inputs.addAndGet(documents.size());
+            this.index.outputs.addAndGet(documents.size());
+
+            return null;
+        }
+
+        /**
+         * Starts workers for a stage. The last worker to finish passes end of stream markers downstream.
+         *
+         * @param stage stage
+         * @param next downstream stage, null for the last stage
+         * @param workers number of workers for this stage
+         * @param downstream number of workers in the downstream stage
+         * @param step stage call
+         * @return worker threads
+         */
+        private List<Thread> workers(Stage stage, Stage next, int workers, int downstream, Step step) {
+            AtomicInteger remaining = new AtomicInteger(workers);
+
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        for (Object input = this.take(stage); input != END && input != null; input = this.take(stage)) {
+                            long begin = System.nanoTime();
+                            Object output = step.apply(input);
+                            stage.busy.addAndGet(System.nanoTime() - begin);
+                            stage.batches.incrementAndGet();
+
+                            if (next != null) {
+                                this.put(next, output);
+                            }
+                        }
+
+                        if (remaining.decrementAndGet() == 0 && next != null) {
+                            for (int x = 0; x < downstream; x++) {
+                                this.put(next, END);
+                            }
+                        }
+                    }
+                    catch (Throwable ex) {
+                        this.fail(ex);
+                    }
+                }, "txtai-ingestion-" + stage.name + "-" + i);
+
+                thread.setDaemon(true);
+                thread.start();
+                threads.add(thread);
+            }
+
+            return threads;
+        }
+
+        /**
+         * Takes the next input for a stage.
+         *
+         * @param stage stage
+         * @return input or null if the pipeline failed
+         */
+        private Object take(Stage stage) throws InterruptedException {
+            while (this.error.get() == null) {
+                stage.maxdepth.accumulateAndGet(stage.queue.size(), Math::max);
+
+                Object input = stage.queue.poll(POLL, TimeUnit.MILLISECONDS);
+                if (input != null) {
+                    return input;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Queues an input for a stage, blocking while the queue is full.
+         *
+         * @param stage stage
+         * @param input input
+         */
+        private void put(Stage stage, Object input) throws InterruptedException {
+            while (this.error.get() == null) {
+                if (stage.queue.offer(input, POLL, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Records the first failure, which stops all stages.
+         *
+         * @param error error
+         */
+        private void fail(Throwable error) {
+            this.error.compareAndSet(null, error);
+        }
+    }
+
+    /**
+     * Converts a pipeline result to text. Lists are joined with newlines.
+     *
+     * @param value result value
+     * @return text
+     */
+    private static String text(Object value) {
+        if (value instanceof List) {
+            List<String> parts = new ArrayList<>();
+            for (Object part : (List<?>)value) {
+                parts.add(String.valueOf(part));
+            }
+
+            return String.join("\n", parts);
+        }
+
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,202 @@
+package txtai;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import retrofit2.Invocation;
+
+/**
+ * OkHttp EventListener that measures each call and reports a sample to the installed {@link Metrics} registry.
+ */
+public class Instrumentation extends EventListener {
+    /**
+     * Creates a listener per call when a metrics registry is installed.
+     */
+    public static final EventListener.Factory FACTORY = call -> {
+        Metrics metrics = Transport.metrics();
+        return metrics != null ? new Instrumentation(metrics) : EventListener.NONE;
+    };
+
+    // Input parameter names used to detect batch sizes, in priority order. Calls with several lists, such as
+    // extract (queue and texts) and batchsimilarity (queries and texts), report the first match.
+    private static final String[] BATCH = {"queue", "queries", "texts", "elements", "files", "documents"};
+
+    private final Metrics metrics;
+    private final Metrics.Sample sample;
+
+    // Phase start times
+    private long start;
+    private long dns;
+    private long connect;
+    private long tls;
+    private long sent;
+
+    /**
+     * Creates a new listener.
+     *
+     * @param metrics target registry
+     */
+    public Instrumentation(Metrics metrics) {
+        this.metrics = metrics;
+        this.sample = new Metrics.Sample();
+        this.sample.reused = true;
+    }
+
+    @Override
+    public void callStart(Call call) {
+        this.start = System.nanoTime();
+
+        this.sample.endpoint = Instrumentation.endpoint(call.request().url());
+        this.sample.batch = Instrumentation.batch(call.request().tag(Invocation.class));
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        this.dns = System.nanoTime();
+        this.sample.reused = false;
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> addresses) {
+        this.sample.dns = System.nanoTime() - this.dns;
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+        this.connect = System.nanoTime();
+        this.sample.reused = false;
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        this.tls = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        this.sample.tls = System.nanoTime() - this.tls;
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+        this.sample.connect = System.nanoTime() - this.connect;
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol, IOException ex) {
+        this.sample.connect = System.nanoTime() - this.connect;
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        // Connection phases are reported per attempt, reset start of request timing
+        this.sent = System.nanoTime();
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        this.sent = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        this.sample.requestbytes += byteCount;
+        this.sent = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        this.sample.ttfb = System.nanoTime() - this.sent;
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        if (!response.isSuccessful()) {
+            this.sample.error = true;
+        }
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        this.sample.responsebytes += byteCount;
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        this.finish();
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ex) {
+        this.sample.error = true;
+        this.finish();
+    }
+
+    /**
+     * Completes and reports the sample.
+     */
+    private void finish() {
+        this.sample.latency = System.nanoTime() - this.start;
+
+        try {
+            this.metrics.record(this.sample);
+        }
+        catch (RuntimeException ex) {
+            // Metrics failures never fail calls
+        }
+    }
+
+    /**
+     * Gets the endpoint name for a url, which is the last path segment.
+     *
+     * @param url request url
+     * @return endpoint name
+     */
+    static String endpoint(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        return segments.isEmpty() ? "" : segments.get(segments.size() - 1);
+    }
+
+    /**
+     * Detects the batch size of a Retrofit invocation. Looks for a list argument or a list parameter
+     * in a request body map.
+     *
+     * @param invocation Retrofit invocation, can be null
+     * @return batch size or -1 if not a batch call
+     */
+    private static int batch(Invocation invocation) {
+        if (invocation == null) {
+            return -1;
+        }
+
+        for (Object argument : invocation.arguments()) {
+            if (argument instanceof List) {
+                return ((List<?>)argument).size();
+            }
+
+            if (argument instanceof Map) {
+                Map<?, ?> params = (Map<?, ?>)argument;
+                for (String name : BATCH) {
+                    if (params.get(name) instanceof List) {
+                        return ((List<?>)params.get(name)).size();
+                    }
+                }
+            }
+        }
+
+        return -1;
+    }
+}
@@ -1,8 +1,10 @@
 package txtai;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 import retrofit2.http.Body;
@@ -16,6 +18,9 @@ import txtai.API.IndexResult;
 @SuppressWarnings("rawtypes")
 public class Labels {
     private Remote api;
+    private Batching batching;
+    private Cache cache;
+    private Coalescing coalescing;
 
     /**
      * API definition
@@ -26,6 +31,9 @@ public class Labels {
 
         @POST("batchlabel")
         Call<List<List<IndexResult>>> batchlabel(@Body HashMap params);
+
+        @POST("label")
+        Call<IndexResults> labelset(@Body HashMap params);
     }
 
     /**
@@ -57,6 +65,48 @@ public class Labels {
         this.api = API.create(url, token, Remote.class);
     }
 
+    /**
+     * Creates a Labels instance that load balances calls across API replicas.
+     *
+     * @param urls API urls
+     * @param token API token
+     */
+    public Labels(List<String> urls, String token) {
+        // Create API instance
+        this.api = API.balanced(urls, token, Remote.class);
+    }
+
+    /**
+     * Sets the batching policy for batch methods. Large inputs are split into chunks that run concurrently.
+     * Defaults to null, which sends each batch as a single request.
+     *
+     * @param batching batching policy, can be null
+     */
+    public void setBatching(Batching batching) {
+        this.batching = batching;
+    }
+
+    /**
+     * Sets the response cache. Single and batch calls check the cache first and only send cache misses
+     * to the server. Defaults to null, which disables caching.
+     *
+     * @param cache response cache, can be null
+     */
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Sets the coalescing policy for single item calls. Concurrent calls are merged into batch requests.
+     * Defaults to null, which sends each call as its own request. A policy can be shared
+     * across clients, calls are only merged with calls from the same client.
+     *
+     * @param coalescing coalescing policy, can be null
+     */
+    public void setCoalescing(Coalescing coalescing) {
+        this.coalescing = coalescing;
+    }
+
     /**
      * Applies a zero shot classifier to text using a list of labels. Returns a list of
      * {id: value, score: value} sorted by highest score, where id is the index in labels.
@@ -66,13 +116,50 @@ public class Labels {
      * @return list of {id: value, score: value} per text element
      */
     public List<IndexResult> label(String text, List<String> labels) throws IOException {
-        // Post parameters
-        HashMap<String, Object> params = new HashMap<String, Object>();
-        params.put("text", text);
-        params.put("labels", labels);
+        if (this.cache != null || this.coalescing != null) {
+            return API.get(this.labelAsync(text, labels));
+        }
 
         // Execute API call
-        return this.api.label(params).execute().body();
+        return this.labelCall(text, labels).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #label(String, List)}.
+     *
+     * @param text input text
+     * @param labels list of labels
+     * @return future list of {id: value, score: value}
+     */
+    public CompletableFuture<List<IndexResult>> labelAsync(String text, List<String> labels) {
+        if (this.cache != null) {
+            return this.cache.apply("label", text, labels, x -> this.labelRun(x, labels));
+        }
+
+        return this.labelRun(text, labels);
+    }
+
+    /**
+     * Columnar version of {@link #label(String, List)}. Hits are decoded into parallel index and score arrays
+     * without creating an object per hit. Runs as a single request, caching and coalescing policies don't apply.
+     *
+     * @param text input text
+     * @param labels list of labels
+     * @return index results
+     */
+    public IndexResults labelset(String text, List<String> labels) throws IOException {
+        return this.api.labelset(this.labelParams(text, labels)).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #labelset(String, List)}.
+     *
+     * @param text input text
+     * @param labels list of labels
+     * @return future index results
+     */
+    public CompletableFuture<IndexResults> labelsetAsync(String text, List<String> labels) {
+        return API.async(this.api.labelset(this.labelParams(text, labels)));
     }
 
     /**
@@ -85,12 +172,101 @@ public class Labels {
      * @return list of {id: value score: value} per text element
      */
     public List<List<IndexResult>> batchlabel(List<String> texts, List<String> labels) throws IOException {
+        if (this.batching != null || this.cache != null || Deduplication.duplicates(texts)) {
+            return API.get(this.batchlabelAsync(texts, labels));
+        }
+
+        // Execute API call
+        return this.batchlabelCall(texts, labels).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #batchlabel(List, List)}.
+     *
+     * @param texts list of texts
+     * @param labels list of labels
+     * @return future list of {id: value score: value} per text element
+     */
+    public CompletableFuture<List<List<IndexResult>>> batchlabelAsync(List<String> texts, List<String> labels) {
+        if (this.cache != null) {
+            return this.cache.batch("label", texts, labels, x -> this.batchlabelRun(x, labels));
+        }
+
+        return this.batchlabelRun(texts, labels);
+    }
+
+    /**
+     * Runs a label request, applying the coalescing policy if set.
+     *
+     * @param text input text
+     * @param labels list of labels
+     * @return future result
+     */
+    private CompletableFuture<List<IndexResult>> labelRun(String text, List<String> labels) {
+        if (this.coalescing != null) {
+            return this.coalescing.submit(Arrays.asList(this, "label", labels), text, x -> this.batchlabelRun(x, labels));
+        }
+
+        return API.async(this.labelCall(text, labels));
+    }
+
+    /**
+     * Runs a batchlabel request over distinct texts, applying the batching policy if set.
+     *
+     * @param texts list of texts
+     * @param labels list of labels
+     * @return future results
+     */
+    private CompletableFuture<List<List<IndexResult>>> batchlabelRun(List<String> texts, List<String> labels) {
+        return Deduplication.apply("batchlabel", texts, x -> {
+            if (this.batching != null) {
+                return this.batching.apply(x, chunk -> API.async(this.batchlabelCall(chunk, labels)));
+            }
+
+            return API.async(this.batchlabelCall(x, labels));
+        });
+    }
+
+    /**
+     * Builds a label call.
+     *
+     * @param text input text
+     * @param labels list of labels
+     * @return call
+     */
+    private Call<List<IndexResult>> labelCall(String text, List<String> labels) {
+        return this.api.label(this.labelParams(text, labels));
+    }
+
+    /**
+     * Builds label post parameters.
+     *
+     * @param text input text
+     * @param labels list of labels
+     * @return parameters
+     */
+    private HashMap<String, Object> labelParams(String text, List<String> labels) {
+        // Post parameters
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("text", text);
+        params.put("labels", labels);
+
+        return params;
+    }
+
+    /**
+     * Builds a batchlabel call.
+     *
+     * @param texts list of texts
+     * @param labels list of labels
+     * @return call
+     */
+    private Call<List<List<IndexResult>>> batchlabelCall(List<String> texts, List<String> labels) {
         // Post parameters
         HashMap<String, Object> params = new HashMap<String, Object>();
         params.put("texts", texts);
         params.put("labels", labels);
 
-        // Execute API call
-        return this.api.batchlabel(params).execute().body();
+        return this.api.batchlabel(params);
     }
 }
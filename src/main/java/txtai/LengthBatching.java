@@ -0,0 +1,101 @@
+package txtai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Batching policy that groups texts of similar length. Models pad every input in a batch to the longest one,
+ * so mixing a long document with short texts wastes compute on padding and holds back the whole batch.
+ *
+ * Inputs are sorted by length, longest first, and packed into chunks where the padded cost, the number of
+ * inputs times the longest input, stays within a character budget. Longest chunks are sent first to cut tail
+ * latency. A text longer than the budget is sent in a chunk of its own. Results are returned in input order.
+ *
+ * Inputs are measured as CharSequence lengths. Other inputs are measured by their string form.
+ */
+public class LengthBatching extends Batching {
+    // Maximum padded characters per request
+    protected final long characters;
+
+    /**
+     * Creates a LengthBatching instance.
+     *
+     * @param characters maximum padded characters per request, number of inputs x longest input
+     * @param size maximum number of inputs per request
+     * @param parallelism maximum number of concurrent requests
+     */
+    public LengthBatching(long characters, int size, int parallelism) {
+        super(size, parallelism);
+
+        if (characters < 1) {
+            throw new IllegalArgumentException("characters must be positive");
+        }
+
+        this.characters = characters;
+    }
+
+    @Override
+    protected List<int[]> partition(List<?> inputs) {
+        int[] lengths = new int[inputs.size()];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = this.length(inputs.get(i));
+        }
+
+        // Sort indices by length, longest first. Stable, so equal lengths keep input order.
+        Integer[] order = new Integer[lengths.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(lengths[b], lengths[a]));
+
+        List<int[]> partitions = new ArrayList<>();
+
+        int start = 0;
+        for (int i = 0; i < order.length; i++) {
+            // First input of a chunk is its longest, close chunk when one more input exceeds the budget
+            long padded = (long)(i - start + 1) * Math.max(1, lengths[order[start]]);
+            if (i > start && (padded > this.characters || i - start >= this.size)) {
+                partitions.add(LengthBatching.indices(order, start, i));
+                start = i;
+            }
+        }
+
+        if (start < order.length) {
+            partitions.add(LengthBatching.indices(order, start, order.length));
+        }
+
+        return partitions;
+    }
+
+    /**
+     * Measures the length of an input.
+     *
+     * @param input input
+     * @return length in characters, 0 for null
+     */
+    protected int length(Object input) {
+        if (input == null) {
+            return 0;
+        }
+
+        return input instanceof CharSequence ? ((CharSequence)input).length() : String.valueOf(input).length();
+    }
+
+    /**
+     * Copies a range of sorted indices.
+     *
+     * @param order sorted indices
+     * @param start start position (inclusive)
+     * @param end end position (exclusive)
+     * @return indices
+     */
+    private static int[] indices(Integer[] order, int start, int end) {
+        int[] indices = new int[end - start];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = order[start + i];
+        }
+
+        return indices;
+    }
+}
@@ -0,0 +1,69 @@
+package txtai;
+
+/**
+ * Pluggable metrics registry. Receives one sample per http call made by any txtai client. Install a registry
+ * with {@link Transport#setMetrics(Metrics)}. Implementations must be thread-safe.
+ */
+public interface Metrics {
+    /**
+     * Single http call measurement. Phase durations are in nanoseconds and set to -1 when the phase didn't
+     * run, for example dns, connect and tls are -1 when a pooled connection is reused.
+     */
+    public static class Sample {
+        // Endpoint name, for example "search"
+        public String endpoint;
+
+        // Total call duration
+        public long latency;
+
+        // Connection phases
+        public long dns = -1;
+        public long connect = -1;
+        public long tls = -1;
+
+        // Time from request sent to first response byte
+        public long ttfb = -1;
+
+        // Request and response body sizes
+        public long requestbytes;
+        public long responsebytes;
+
+        // Number of input elements in the request, -1 if not a batch call
+        public int batch = -1;
+
+        // True if the call failed
+        public boolean error;
+
+        // True if a pooled connection was reused
+        public boolean reused;
+    }
+
+    /**
+     * Records a call sample.
+     *
+     * @param sample call sample
+     */
+    void record(Sample sample);
+
+    /**
+     * Records a compressed request body. Called for each body considered by {@link Compression}.
+     *
+     * @param endpoint endpoint name
+     * @param original uncompressed size in bytes
+     * @param compressed compressed size in bytes
+     */
+    default void compression(String endpoint, long original, long compressed) {
+        // Ignored by default
+    }
+
+    /**
+     * Records a deduplicated batch. Called by {@link Deduplication} for each batch with repeated inputs.
+     *
+     * @param endpoint endpoint name
+     * @param inputs number of inputs in the batch
+     * @param distinct number of distinct inputs sent
+     */
+    default void deduplication(String endpoint, int inputs, int distinct) {
+        // Ignored by default
+    }
+}
@@ -0,0 +1,338 @@
+package txtai;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory metrics registry. Aggregates call samples per endpoint into counters and latency histograms.
+ * Recording is lock-free, use {@link #snapshot()} to read the current values.
+ */
+public class MetricsRegistry implements Metrics {
+    // Aggregated metrics by endpoint
+    private final Map<String, Endpoint> endpoints;
+
+    /**
+     * Creates a new MetricsRegistry.
+     */
+    public MetricsRegistry() {
+        this.endpoints = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void record(Sample sample) {
+        this.endpoints.computeIfAbsent(sample.endpoint, Endpoint::new).record(sample);
+    }
+
+    @Override
+    public void compression(String endpoint, long original, long compressed) {
+        Endpoint metrics = this.endpoints.computeIfAbsent(endpoint, Endpoint::new);
+        metrics.uncompressed.add(original);
+        metrics.compressed.add(compressed);
+    }
+
+    @Override
+    public void deduplication(String endpoint, int inputs, int distinct) {
+        this.endpoints.computeIfAbsent(endpoint, Endpoint::new).duplicates.add(inputs - distinct);
+    }
+
+    /**
+     * Gets a point in time copy of all metrics, keyed and sorted by endpoint.
+     *
+     * @return snapshots by endpoint
+     */
+    public Map<String, Snapshot> snapshot() {
+        Map<String, Snapshot> snapshots = new TreeMap<>();
+        for (Endpoint endpoint : this.endpoints.values()) {
+            snapshots.put(endpoint.name, endpoint.snapshot());
+        }
+
+        return snapshots;
+    }
+
+    /**
+     * Clears all metrics.
+     */
+    public void reset() {
+        this.endpoints.clear();
+    }
+
+    /**
+     * Metrics for a single endpoint.
+     */
+    public static class Snapshot {
+        public final String endpoint;
+
+        // Call counters
+        public final long calls;
+        public final long errors;
+        public final long reused;
+
+        // Body byte counts
+        public final long requestbytes;
+        public final long responsebytes;
+
+        // Request body bytes before and after compression
+        public final long uncompressed;
+        public final long compressed;
+
+        // Batch inputs collapsed by deduplication
+        public final long duplicates;
+
+        // Phase histograms in nanoseconds
+        public final Histogram latency;
+        public final Histogram dns;
+        public final Histogram connect;
+        public final Histogram tls;
+        public final Histogram ttfb;
+
+        // Batch size histogram, only batch calls are counted
+        public final Histogram batch;
+
+        Snapshot(Endpoint endpoint) {
+            this.endpoint = endpoint.name;
+            this.calls = endpoint.calls.sum();
+            this.errors = endpoint.errors.sum();
+            this.reused = endpoint.reused.sum();
+            this.requestbytes = endpoint.requestbytes.sum();
+            this.responsebytes = endpoint.responsebytes.sum();
+            this.uncompressed = endpoint.uncompressed.sum();
+            this.compressed = endpoint.compressed.sum();
+            this.duplicates = endpoint.duplicates.sum();
+            this.latency = endpoint.latency.copy();
+            this.dns = endpoint.dns.copy();
+            this.connect = endpoint.connect.copy();
+            this.tls = endpoint.tls.copy();
+            this.ttfb = endpoint.ttfb.copy();
+            this.batch = endpoint.batch.copy();
+        }
+
+        /**
+         * Fraction of calls that reused a pooled connection.
+         *
+         * @return reuse rate between 0 and 1
+         */
+        public double reuse() {
+            return this.calls > 0 ? (double)this.reused / this.calls : 0;
+        }
+
+        /**
+         * Compression ratio of request bodies, uncompressed size divided by compressed size.
+         *
+         * @return compression ratio, 1 if no bodies were compressed
+         */
+        public double ratio() {
+            return this.compressed > 0 ? (double)this.uncompressed / this.compressed : 1;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s calls=%d errors=%d reuse=%.2f latency(ms) p50=%.2f p99=%.2f ttfb(ms) p50=%.2f bytes=%d/%d compression=%.2f batch(mean)=%.1f duplicates=%d",
+                this.endpoint, this.calls, this.errors, this.reuse(), this.latency.percentile(50) / 1e6,
+                this.latency.percentile(99) / 1e6, this.ttfb.percentile(50) / 1e6, this.requestbytes,
+                this.responsebytes, this.ratio(), this.batch.mean(), this.duplicates);
+        }
+    }
+
+    /**
+     * Log-linear histogram of non-negative long values. Each power of two range is split into 8 linear
+     * buckets, which bounds the relative error of percentiles to 12.5%.
+     */
+    public static class Histogram {
+        // Linear buckets per power of two
+        private static final int BITS = 3;
+        private static final int SUB = 1 << BITS;
+
+        private final AtomicLongArray buckets;
+        private final LongAdder count;
+        private final LongAdder sum;
+        private final LongAccumulator max;
+
+        /**
+         * Creates an empty Histogram.
+         */
+        public Histogram() {
+            this.buckets = new AtomicLongArray((64 - BITS + 1) * SUB);
+            this.count = new LongAdder();
+            this.sum = new LongAdder();
+            this.max = new LongAccumulator(Math::max, 0);
+        }
+
+        /**
+         * Records a value. Negative values are ignored.
+         *
+         * @param value value
+         */
+        public void record(long value) {
+            if (value >= 0) {
+                this.buckets.incrementAndGet(Histogram.index(value));
+                this.count.increment();
+                this.sum.add(value);
+                this.max.accumulate(value);
+            }
+        }
+
+        /**
+         * Number of recorded values.
+         *
+         * @return count
+         */
+        public long count() {
+            return this.count.sum();
+        }
+
+        /**
+         * Mean of recorded values.
+         *
+         * @return mean, 0 if empty
+         */
+        public double mean() {
+            long count = this.count();
+            return count > 0 ? (double)this.sum.sum() / count : 0;
+        }
+
+        /**
+         * Largest recorded value.
+         *
+         * @return max, 0 if empty
+         */
+        public long max() {
+            return this.max.get();
+        }
+
+        /**
+         * Estimates a percentile of recorded values.
+         *
+         * @param percentile percentile between 0 and 100
+         * @return estimated value, 0 if empty
+         */
+        public double percentile(double percentile) {
+            long count = this.count();
+            if (count == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long)Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < this.buckets.length(); i++) {
+                seen += this.buckets.get(i);
+                if (seen >= rank) {
+                    // Bucket midpoint, capped by max
+                    return Math.min(Histogram.lower(i) + Histogram.width(i) / 2.0, this.max());
+                }
+            }
+
+            return this.max();
+        }
+
+        /**
+         * Creates a copy of this histogram.
+         *
+         * @return copy
+         */
+        Histogram copy() {
+            Histogram copy = new Histogram();
+            for (int i = 0; i < this.buckets.length(); i++) {
+                copy.buckets.set(i, this.buckets.get(i));
+            }
+
+            copy.count.add(this.count.sum());
+            copy.sum.add(this.sum.sum());
+            copy.max.accumulate(this.max.get());
+
+            return copy;
+        }
+
+        /**
+         * Bucket index for value.
+         *
+         * @param value value
+         * @return bucket index
+         */
+        private static int index(long value) {
+            if (value < SUB) {
+                return (int)value;
+            }
+
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int)(value >>> (exponent - BITS)) & (SUB - 1);
+            return (exponent - BITS + 1) * SUB + sub;
+        }
+
+        /**
+         * Smallest value in a bucket.
+         *
+         * @param index bucket index
+         * @return lower bound
+         */
+        private static long lower(int index) {
+            if (index < SUB) {
+                return index;
+            }
+
+            int exponent = index / SUB + BITS - 1;
+            return (long)(SUB + index % SUB) << (exponent - BITS);
+        }
+
+        /**
+         * Bucket width.
+         *
+         * @param index bucket index
+         * @return width
+         */
+        private static long width(int index) {
+            return index < SUB ? 1 : 1L << (index / SUB - 1);
+        }
+    }
+
+    /**
+     * Live aggregates for an endpoint.
+     */
+    private static class Endpoint {
+        final String name;
+        final LongAdder calls = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder reused = new LongAdder();
+        final LongAdder requestbytes = new LongAdder();
+        final LongAdder responsebytes = new LongAdder();
+        final LongAdder uncompressed = new LongAdder();
+        final LongAdder compressed = new LongAdder();
+        final LongAdder duplicates = new LongAdder();
+        final Histogram latency = new Histogram();
+        final Histogram dns = new Histogram();
+        final Histogram connect = new Histogram();
+        final Histogram tls = new Histogram();
+        final Histogram ttfb = new Histogram();
+        final Histogram batch = new Histogram();
+
+        Endpoint(String name) {
+            this.name = name;
+        }
+
+        void record(Sample sample) {
+            this.calls.increment();
+            if (sample.error) {
+                this.errors.increment();
+            }
+            if (sample.reused) {
+                this.reused.increment();
+            }
+
+            this.requestbytes.add(sample.requestbytes);
+            this.responsebytes.add(sample.responsebytes);
+            this.latency.record(sample.latency);
+            this.dns.record(sample.dns);
+            this.connect.record(sample.connect);
+            this.tls.record(sample.tls);
+            this.ttfb.record(sample.ttfb);
+            this.batch.record(sample.batch);
+        }
+
+        Snapshot snapshot() {
+            return new Snapshot(this);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package txtai;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Base class for columnar results. Stores hits as a score array and a parallel id column held by the subclass,
+ * without creating an object per hit. Use {@link #list()} to get a view of result objects when needed.
+ *
+ * @param <E> result element type
+ */
+public abstract class ScoredResults<E> {
+    private final double[] scores;
+
+    /**
+     * Creates a ScoredResults instance.
+     *
+     * @param size number of ids
+     * @param scores scores, one per id
+     */
+    protected ScoredResults(int size, double[] scores) {
+        if (size != scores.length) {
+            throw new IllegalArgumentException("ids and scores must have the same length");
+        }
+
+        this.scores = scores;
+    }
+
+    /**
+     * Number of hits.
+     *
+     * @return number of hits
+     */
+    public int size() {
+        return this.scores.length;
+    }
+
+    /**
+     * Gets the score of a hit.
+     *
+     * @param index hit index
+     * @return score
+     */
+    public double score(int index) {
+        return this.scores[index];
+    }
+
+    /**
+     * Gets all scores. Returns the backing array, it must not be modified.
+     *
+     * @return scores sorted by highest score
+     */
+    public double[] scores() {
+        return this.scores;
+    }
+
+    /**
+     * Gets a read-only list view of these results. Elements are created on access.
+     *
+     * @return list of {id: value, score: value}
+     */
+    public List<E> list() {
+        return new View();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < this.scores.length; i++) {
+            builder.append(i > 0 ? ", " : "").append(this.key(i)).append('=').append(this.scores[i]);
+        }
+
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Creates the result element for a hit.
+     *
+     * @param index hit index
+     * @return result element
+     */
+    protected abstract E element(int index);
+
+    /**
+     * Gets the id of a hit as an object.
+     *
+     * @param index hit index
+     * @return id
+     */
+    protected abstract Object key(int index);
+
+    /**
+     * List view over the columns.
+     */
+    private class View extends AbstractList<E> implements RandomAccess {
+        @Override
+        public E get(int index) {
+            return ScoredResults.this.element(index);
+        }
+
+        @Override
+        public int size() {
+            return ScoredResults.this.scores.length;
+        }
+    }
+
+    /**
+     * Adapter for a JSON array of {id: value, score: value} objects. Other fields are skipped. Subclasses
+     * provide the id column.
+     *
+     * @param <T> results type
+     * @param <C> id column type
+     */
+    public abstract static class Adapter<T extends ScoredResults<?>, C> extends TypeAdapter<T> {
+        @Override
+        public void write(JsonWriter writer, T results) throws IOException {
+            if (results == null) {
+                writer.nullValue();
+                return;
+            }
+
+            writer.beginArray();
+            for (int i = 0; i < results.size(); i++) {
+                writer.beginObject();
+                writer.name("id");
+                this.write(writer, results, i);
+                writer.name("score").value(results.score(i));
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+
+        @Override
+        public T read(JsonReader reader) throws IOException {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+
+            C ids = this.column(16);
+            double[] scores = new double[16];
+            int size = 0;
+
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (size == scores.length) {
+                    ids = this.copy(ids, size * 2);
+                    scores = Arrays.copyOf(scores, size * 2);
+                }
+
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if ("id".equals(name) && reader.peek() != JsonToken.NULL) {
+                        this.read(reader, ids, size);
+                    }
+                    else if ("score".equals(name) && reader.peek() != JsonToken.NULL) {
+                        scores[size] = reader.nextDouble();
+                    }
+                    else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+
+                size++;
+            }
+            reader.endArray();
+
+            return this.create(this.copy(ids, size), Arrays.copyOf(scores, size));
+        }
+
+        /**
+         * Writes the id of a hit.
+         *
+         * @param writer JSON writer
+         * @param results results
+         * @param index hit index
+         */
+        protected abstract void write(JsonWriter writer, T results, int index) throws IOException;
+
+        /**
+         * Reads an id into the column.
+         *
+         * @param reader JSON reader
+         * @param ids id column
+         * @param index hit index
+         */
+        protected abstract void read(JsonReader reader, C ids, int index) throws IOException;
+
+        /**
+         * Allocates an id column.
+         *
+         * @param capacity column capacity
+         * @return id column
+         */
+        protected abstract C column(int capacity);
+
+        /**
+         * Copies an id column into a column with a new length.
+         *
+         * @param ids id column
+         * @param length new length
+         * @return id column
+         */
+        protected abstract C copy(C ids, int length);
+
+        /**
+         * Creates results from columns.
+         *
+         * @param ids id column
+         * @param scores scores
+         * @return results
+         */
+        protected abstract T create(C ids, double[] scores);
+    }
+}
@@ -0,0 +1,88 @@
+package txtai;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import txtai.Embeddings.SearchResult;
+
+/**
+ * Columnar search results. Stores hits as parallel id and score arrays decoded directly from JSON, without
+ * creating an object per hit. Use {@link #list()} to get a {@link SearchResult} view when needed.
+ */
+public class SearchResults extends ScoredResults<SearchResult> {
+    private final String[] ids;
+
+    /**
+     * Creates a SearchResults instance.
+     *
+     * @param ids document ids
+     * @param scores scores, same length as ids
+     */
+    public SearchResults(String[] ids, double[] scores) {
+        super(ids.length, scores);
+        this.ids = ids;
+    }
+
+    /**
+     * Gets the document id of a hit.
+     *
+     * @param index hit index
+     * @return document id
+     */
+    public String id(int index) {
+        return this.ids[index];
+    }
+
+    /**
+     * Gets all document ids. Returns the backing array, it must not be modified.
+     *
+     * @return document ids sorted by highest score
+     */
+    public String[] ids() {
+        return this.ids;
+    }
+
+    @Override
+    protected SearchResult element(int index) {
+        return new SearchResult(this.ids[index], this.score(index));
+    }
+
+    @Override
+    protected Object key(int index) {
+        return this.ids[index];
+    }
+
+    /**
+     * Adapter for a JSON array of {id: value, score: value} objects. Other fields are skipped.
+     */
+    public static class Adapter extends ScoredResults.Adapter<SearchResults, String[]> {
+        @Override
+        protected void write(JsonWriter writer, SearchResults results, int index) throws IOException {
+            writer.value(results.ids[index]);
+        }
+
+        @Override
+        protected void read(JsonReader reader, String[] ids, int index) throws IOException {
+            // Numeric ids are kept in their JSON form
+            ids[index] = reader.nextString();
+        }
+
+        @Override
+        protected String[] column(int capacity) {
+            return new String[capacity];
+        }
+
+        @Override
+        protected String[] copy(String[] ids, int length) {
+            return Arrays.copyOf(ids, length);
+        }
+
+        @Override
+        protected SearchResults create(String[] ids, double[] scores) {
+            return new SearchResults(ids, scores);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package txtai;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 import retrofit2.http.Body;
@@ -16,6 +17,8 @@ import retrofit2.http.Query;
 @SuppressWarnings("rawtypes")
 public class Segmentation {
     private Remote api;
+    private Batching batching;
+    private Cache cache;
 
     /**
      * API definition
@@ -57,6 +60,26 @@ public class Segmentation {
         this.api = API.create(url, token, Remote.class);
     }
 
+    /**
+     * Sets the batching policy for batch methods. Large inputs are split into chunks that run concurrently.
+     * Defaults to null, which sends each batch as a single request.
+     *
+     * @param batching batching policy, can be null
+     */
+    public void setBatching(Batching batching) {
+        this.batching = batching;
+    }
+
+    /**
+     * Sets the response cache. Single and batch calls check the cache first and only send cache misses
+     * to the server. Defaults to null, which disables caching.
+     *
+     * @param cache response cache, can be null
+     */
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
     /**
      * Segments text into semantic units.
      * 
@@ -64,9 +87,27 @@ public class Segmentation {
      * @return segmented text
      */
     public Object segment(String text) throws IOException {
+        if (this.cache != null) {
+            return API.get(this.segmentAsync(text));
+        }
+
         return this.api.segment(text).execute().body();
     }
 
+    /**
+     * Asynchronous version of {@link #segment(String)}.
+     *
+     * @param text input text
+     * @return future segmented text
+     */
+    public CompletableFuture<Object> segmentAsync(String text) {
+        if (this.cache != null) {
+            return this.cache.apply("segment", text, null, x -> API.async(this.api.segment(x)));
+        }
+
+        return API.async(this.api.segment(text));
+    }
+
     /**
      * Segments text into semantic units.
      * 
@@ -74,10 +115,52 @@ public class Segmentation {
      * @return list of segmented text
      */
     public List<Object> batchsegment(List<String> texts) throws IOException {
+        if (this.batching != null || this.cache != null) {
+            return API.get(this.batchsegmentAsync(texts));
+        }
+
+        return this.batchsegmentCall(texts).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #batchsegment(List)}.
+     *
+     * @param texts list of texts to segment
+     * @return future list of segmented text
+     */
+    public CompletableFuture<List<Object>> batchsegmentAsync(List<String> texts) {
+        if (this.cache != null) {
+            return this.cache.batch("segment", texts, null, this::batchsegmentRun);
+        }
+
+        return this.batchsegmentRun(texts);
+    }
+
+    /**
+     * Runs a batchsegment request, applying the batching policy if set.
+     *
+     * @param texts list of texts to segment
+     * @return future results
+     */
+    private CompletableFuture<List<Object>> batchsegmentRun(List<String> texts) {
+        if (this.batching != null) {
+            return this.batching.apply(texts, chunk -> API.async(this.batchsegmentCall(chunk)));
+        }
+
+        return API.async(this.batchsegmentCall(texts));
+    }
+
+    /**
+     * Builds a batchsegment call.
+     *
+     * @param texts list of texts to segment
+     * @return call
+     */
+    private Call<List<Object>> batchsegmentCall(List<String> texts) {
         // Post parameters
         HashMap<String, Object> params = new HashMap<String, Object>();
         params.put("texts", texts);
 
-        return this.api.batchsegment(params).execute().body();
+        return this.api.batchsegment(params);
     }
 }
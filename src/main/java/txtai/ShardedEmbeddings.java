@@ -0,0 +1,478 @@
+package txtai;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import txtai.Embeddings.Document;
+import txtai.Embeddings.SearchResult;
+
+/**
+ * Embeddings index partitioned across multiple txtai nodes. Documents are routed to shards by consistent
+ * hashing of the document id, searches run on all shards in parallel and the per-shard results are merged
+ * into a global top-k by score.
+ *
+ * Shards must use the same embeddings model, so scores are comparable across shards. Calls fail as soon as
+ * one shard fails, calls still running on other shards are cancelled.
+ */
+@SuppressWarnings("rawtypes")
+public class ShardedEmbeddings {
+    // Virtual nodes per shard on the hash ring
+    private static final int VIRTUAL = 128;
+
+    private final List<Embeddings> shards;
+    private final TreeMap<Long, Integer> ring;
+
+    /**
+     * Creates a ShardedEmbeddings instance.
+     *
+     * @param urls shard API urls
+     */
+    public ShardedEmbeddings(List<String> urls) {
+        this(urls, null);
+    }
+
+    /**
+     * Creates a ShardedEmbeddings instance.
+     *
+     * @param urls shard API urls
+     * @param token API token
+     */
+    public ShardedEmbeddings(List<String> urls, String token) {
+        this(ShardedEmbeddings.create(urls, token));
+    }
+
+    /**
+     * Creates a ShardedEmbeddings instance from existing Embeddings instances. Shard order determines
+     * routing, new shards must be added to the end.
+     *
+     * @param shards Embeddings instances, one per shard
+     */
+    public ShardedEmbeddings(Embeddings... shards) {
+        if (shards.length == 0) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+
+        this.shards = new ArrayList<>(Arrays.asList(shards));
+        this.ring = new TreeMap<>();
+
+        for (int i = 0; i < this.shards.size(); i++) {
+            for (int v = 0; v < VIRTUAL; v++) {
+                this.ring.put(ShardedEmbeddings.hash("shard-" + i + "#" + v), i);
+            }
+        }
+    }
+
+    /**
+     * Gets the Embeddings instance for each shard.
+     *
+     * @return read-only list of shards
+     */
+    public List<Embeddings> shards() {
+        return Collections.unmodifiableList(this.shards);
+    }
+
+    /**
+     * Gets the shard a document id is routed to.
+     *
+     * @param id document id
+     * @return shard index
+     */
+    public int shard(String id) {
+        SortedMap<Long, Integer> tail = this.ring.tailMap(ShardedEmbeddings.hash(id));
+        return tail.isEmpty() ? this.ring.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+
+    /**
+     * Finds documents most similar to the input query across all shards. Returns
+     * a list of {id: value, score: value} sorted by highest score.
+     *
+     * @param query query text
+     * @param limit maximum results
+     * @param weights hybrid score weights, if applicable
+     * @param index index name, if applicable
+     * @return list of {id: value, score: value}
+     */
+    public List<SearchResult> search(String query, int limit, Float weights, String index) throws IOException {
+        return API.get(this.searchAsync(query, limit, weights, index));
+    }
+
+    /**
+     * Asynchronous version of {@link #search(String, int, Float, String)}.
+     *
+     * @param query query text
+     * @param limit maximum results
+     * @param weights hybrid score weights, if applicable
+     * @param index index name, if applicable
+     * @return future list of {id: value, score: value}
+     */
+    public CompletableFuture<List<SearchResult>> searchAsync(String query, int limit, Float weights, String index) {
+        return this.all(shard -> shard.searchAsync(query, limit, weights, index), results -> ShardedEmbeddings.merge(results, limit));
+    }
+
+    /**
+     * Finds documents most similar to the input queries across all shards. Returns
+     * a list of {id: value, score: value} sorted by highest score per query.
+     *
+     * @param queries queries text
+     * @param limit maximum results
+     * @param weights hybrid score weights, if applicable
+     * @param index index name, if applicable
+     * @return list of {id: value, score: value} per query
+     */
+    public List<List<SearchResult>> batchsearch(List<String> queries, int limit, Float weights, String index) throws IOException {
+        return API.get(this.batchsearchAsync(queries, limit, weights, index));
+    }
+
+    /**
+     * Asynchronous version of {@link #batchsearch(List, int, Float, String)}.
+     *
+     * @param queries queries text
+     * @param limit maximum results
+     * @param weights hybrid score weights, if applicable
+     * @param index index name, if applicable
+     * @return future list of {id: value, score: value} per query
+     */
+    public CompletableFuture<List<List<SearchResult>>> batchsearchAsync(List<String> queries, int limit, Float weights, String index) {
+        return this.all(shard -> shard.batchsearchAsync(queries, limit, weights, index), results -> {
+            for (List<List<SearchResult>> result : results) {
+                if (result == null || result.size() != queries.size()) {
+                    throw new CompletionException(new IOException("Expected " + queries.size() + " results, received " +
+                                                                  (result != null ? result.size() : 0)));
+                }
+            }
+
+            List<List<SearchResult>> merged = new ArrayList<>(queries.size());
+            for (int x = 0; x < queries.size(); x++) {
+                List<List<SearchResult>> query = new ArrayList<>(results.size());
+                for (List<List<SearchResult>> result : results) {
+                    query.add(result.get(x));
+                }
+
+                merged.add(ShardedEmbeddings.merge(query, limit));
+            }
+
+            return merged;
+        });
+    }
+
+    /**
+     * Adds a batch of documents for indexing. Each document is sent to the shard for its id.
+     *
+     * @param documents list of {id: value, text: value}
+     */
+    public void add(List documents) throws IOException {
+        API.get(this.addAsync(documents));
+    }
+
+    /**
+     * Asynchronous version of {@link #add(List)}.
+     *
+     * @param documents list of {id: value, text: value}
+     * @return future that completes when the batch is added
+     */
+    public CompletableFuture<Void> addAsync(List documents) {
+        List<List<Object>> routed = this.partition(documents, ShardedEmbeddings::id);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < routed.size(); i++) {
+            if (!routed.get(i).isEmpty()) {
+                futures.add(this.shards.get(i).addAsync(routed.get(i)));
+            }
+        }
+
+        return ShardedEmbeddings.join(futures);
+    }
+
+    /**
+     * Builds the embeddings index on all shards for previously batched documents.
+     */
+    public void index() throws IOException {
+        API.get(this.indexAsync());
+    }
+
+    /**
+     * Asynchronous version of {@link #index()}.
+     *
+     * @return future that completes when all shards are indexed
+     */
+    public CompletableFuture<Void> indexAsync() {
+        return this.all(Embeddings::indexAsync, results -> null);
+    }
+
+    /**
+     * Runs an embeddings upsert operation on all shards for previously batched documents.
+     */
+    public void upsert() throws IOException {
+        API.get(this.upsertAsync());
+    }
+
+    /**
+     * Asynchronous version of {@link #upsert()}.
+     *
+     * @return future that completes when all shards are updated
+     */
+    public CompletableFuture<Void> upsertAsync() {
+        return this.all(Embeddings::upsertAsync, results -> null);
+    }
+
+    /**
+     * Deletes from the embeddings index. Each id is sent to the shard it's routed to. Returns list of ids deleted.
+     *
+     * @param ids list of ids to delete
+     * @return ids deleted
+     */
+    public List<String> delete(List<String> ids) throws IOException {
+        return API.get(this.deleteAsync(ids));
+    }
+
+    /**
+     * Asynchronous version of {@link #delete(List)}.
+     *
+     * @param ids list of ids to delete
+     * @return future ids deleted
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<List<String>> deleteAsync(List<String> ids) {
+        List<List<Object>> routed = this.partition(ids, String::valueOf);
+
+        List<CompletableFuture<List<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < routed.size(); i++) {
+            if (!routed.get(i).isEmpty()) {
+                futures.add(this.shards.get(i).deleteAsync((List)routed.get(i)));
+            }
+        }
+
+        return ShardedEmbeddings.join(futures).thenApply(x -> {
+            List<String> deleted = new ArrayList<>();
+            for (CompletableFuture<List<String>> future : futures) {
+                List<String> result = future.join();
+                if (result != null) {
+                    deleted.addAll(result);
+                }
+            }
+
+            return deleted;
+        });
+    }
+
+    /**
+     * Total number of elements across all shards.
+     *
+     * @return number of elements in embeddings index
+     */
+    public int count() throws IOException {
+        return API.get(this.countAsync());
+    }
+
+    /**
+     * Asynchronous version of {@link #count()}.
+     *
+     * @return future number of elements in embeddings index
+     */
+    public CompletableFuture<Integer> countAsync() {
+        return this.all(Embeddings::countAsync, results -> {
+            int count = 0;
+            for (Integer result : results) {
+                count += result != null ? result : 0;
+            }
+
+            return count;
+        });
+    }
+
+    /**
+     * Runs a call on all shards in parallel and combines the results in shard order.
+     *
+     * @param call shard call
+     * @param combine function that combines results
+     * @return future combined result
+     */
+    private <T, R> CompletableFuture<R> all(Function<Embeddings, CompletableFuture<T>> call, Function<List<T>, R> combine) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(this.shards.size());
+        for (Embeddings shard : this.shards) {
+            futures.add(call.apply(shard));
+        }
+
+        return ShardedEmbeddings.join(futures).thenApply(x -> {
+            List<T> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+
+            return combine.apply(results);
+        });
+    }
+
+    /**
+     * Waits for all shard calls. The first failure fails the returned future and cancels the other calls.
+     * Cancelling the returned future cancels all calls.
+     *
+     * @param futures shard calls
+     * @return future that completes when all calls complete
+     */
+    private static <T> CompletableFuture<Void> join(List<CompletableFuture<T>> futures) {
+        CompletableFuture<Void> result = new CompletableFuture<Void>() {
+            @Override
+            public boolean cancel(boolean interrupt) {
+                boolean cancelled = super.cancel(interrupt);
+                ShardedEmbeddings.cancel(futures);
+                return cancelled;
+            }
+        };
+
+        AtomicInteger remaining = new AtomicInteger(futures.size());
+        if (futures.isEmpty()) {
+            result.complete(null);
+        }
+
+        for (CompletableFuture<T> future : futures) {
+            future.whenComplete((output, error) -> {
+                if (error != null) {
+                    // Report the original error, not a cancellation of another shard
+                    if (result.completeExceptionally(error instanceof CompletionException && error.getCause() != null ?
+                                                     error.getCause() : error)) {
+                        ShardedEmbeddings.cancel(futures);
+                    }
+                }
+                else if (remaining.decrementAndGet() == 0) {
+                    result.complete(null);
+                }
+            });
+        }
+
+        return result;
+    }
+
+    /**
+     * Cancels shard calls. Completed calls are unaffected.
+     *
+     * @param futures shard calls
+     */
+    private static <T> void cancel(List<CompletableFuture<T>> futures) {
+        for (CompletableFuture<T> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Splits elements into one list per shard, preserving input order within each shard.
+     *
+     * @param elements input elements
+     * @param id function that extracts the routing id
+     * @return elements per shard
+     */
+    private List<List<Object>> partition(List<?> elements, Function<Object, String> id) {
+        List<List<Object>> routed = new ArrayList<>(this.shards.size());
+        for (int i = 0; i < this.shards.size(); i++) {
+            routed.add(new ArrayList<>());
+        }
+
+        for (Object element : elements) {
+            routed.get(this.shard(id.apply(element))).add(element);
+        }
+
+        return routed;
+    }
+
+    /**
+     * Merges per-shard results into a global top-k by score.
+     *
+     * @param results results per shard
+     * @param limit maximum results
+     * @return merged results
+     */
+    private static List<SearchResult> merge(List<List<SearchResult>> results, int limit) {
+        List<SearchResult> merged = new ArrayList<>();
+        for (List<SearchResult> result : results) {
+            if (result != null) {
+                merged.addAll(result);
+            }
+        }
+
+        merged.sort(Comparator.comparingDouble((SearchResult result) -> result.score).reversed());
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    /**
+     * Extracts the id from a document. Supports Document instances, maps with an id key and
+     * (id, text, tags) lists.
+     *
+     * @param document document
+     * @return document id
+     */
+    private static String id(Object document) {
+        Object id = null;
+        if (document instanceof Document) {
+            id = ((Document)document).id;
+        }
+        else if (document instanceof Map) {
+            id = ((Map)document).get("id");
+        }
+        else if (document instanceof List && !((List)document).isEmpty()) {
+            id = ((List)document).get(0);
+        }
+
+        if (id == null) {
+            throw new IllegalArgumentException("Documents require an id for shard routing: " + document);
+        }
+
+        // Integral ids are equal regardless of numeric type
+        if (id instanceof Number && ((Number)id).doubleValue() == ((Number)id).longValue()) {
+            return String.valueOf(((Number)id).longValue());
+        }
+
+        return String.valueOf(id);
+    }
+
+    /**
+     * Hashes a key onto the ring.
+     *
+     * @param key key
+     * @return 64-bit hash
+     */
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+
+            return hash;
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Creates an Embeddings instance per url.
+     *
+     * @param urls API urls
+     * @param token API token
+     * @return Embeddings instances
+     */
+    private static Embeddings[] create(List<String> urls, String token) {
+        Embeddings[] shards = new Embeddings[urls.size()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Embeddings(urls.get(i), token);
+        }
+
+        return shards;
+    }
+}
@@ -3,6 +3,7 @@ package txtai;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 import retrofit2.http.Body;
@@ -16,6 +17,7 @@ import txtai.API.IndexResult;
 @SuppressWarnings("rawtypes")
 public class Similarity {
     private Remote api;
+    private Batching batching;
 
     /**
      * API definition
@@ -57,6 +59,16 @@ public class Similarity {
         this.api = API.create(url, token, Remote.class);
     }
 
+    /**
+     * Sets the batching policy for batch methods. Large inputs are split into chunks that run concurrently.
+     * Defaults to null, which sends each batch as a single request.
+     *
+     * @param batching batching policy, can be null
+     */
+    public void setBatching(Batching batching) {
+        this.batching = batching;
+    }
+
     /**
      * Computes the similarity between query and list of text. Returns a list of
      * {id: value, score: value} sorted by highest score, where id is the index
@@ -67,12 +79,18 @@ public class Similarity {
      * @return list of {id: value, score: value}
      */
     public List<IndexResult> similarity(String query, List<String> texts) throws IOException {
-        // Post parameters
-        HashMap<String, Object> params = new HashMap<String, Object>();
-        params.put("query", query);
-        params.put("texts", texts);
+        return this.similarityCall(query, texts).execute().body();
+    }
 
-        return this.api.similarity(params).execute().body();
+    /**
+     * Asynchronous version of {@link #similarity(String, List)}.
+     *
+     * @param query query text
+     * @param texts list of text
+     * @return future list of {id: value, score: value}
+     */
+    public CompletableFuture<List<IndexResult>> similarityAsync(String query, List<String> texts) {
+        return API.async(this.similarityCall(query, texts));
     }
 
     /**
@@ -85,11 +103,57 @@ public class Similarity {
      * @return list of {id: value, score: value} per query
      */
     public List<List<IndexResult>> batchsimilarity(List<String> queries, List<String> texts) throws IOException {
+        if (this.batching != null) {
+            return API.get(this.batchsimilarityAsync(queries, texts));
+        }
+
+        return this.batchsimilarityCall(queries, texts).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #batchsimilarity(List, List)}.
+     *
+     * @param queries queries text
+     * @param texts list of text
+     * @return future list of {id: value, score: value} per query
+     */
+    public CompletableFuture<List<List<IndexResult>>> batchsimilarityAsync(List<String> queries, List<String> texts) {
+        if (this.batching != null) {
+            return this.batching.apply(queries, chunk -> API.async(this.batchsimilarityCall(chunk, texts)));
+        }
+
+        return API.async(this.batchsimilarityCall(queries, texts));
+    }
+
+    /**
+     * Builds a similarity call.
+     *
+     * @param query query text
+     * @param texts list of text
+     * @return call
+     */
+    private Call<List<IndexResult>> similarityCall(String query, List<String> texts) {
+        // Post parameters
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("query", query);
+        params.put("texts", texts);
+
+        return this.api.similarity(params);
+    }
+
+    /**
+     * Builds a batchsimilarity call.
+     *
+     * @param queries queries text
+     * @param texts list of text
+     * @return call
+     */
+    private Call<List<List<IndexResult>>> batchsimilarityCall(List<String> queries, List<String> texts) {
         // Post parameters
         HashMap<String, Object> params = new HashMap<String, Object>();
         params.put("queries", queries);
         params.put("texts", texts);
 
-        return this.api.batchsimilarity(params).execute().body();
+        return this.api.batchsimilarity(params);
     }
 }
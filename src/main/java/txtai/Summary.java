@@ -1,8 +1,10 @@
 package txtai;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 import retrofit2.http.Body;
@@ -16,6 +18,8 @@ import retrofit2.http.Query;
 @SuppressWarnings("rawtypes")
 public class Summary {
     private Remote api;
+    private Batching batching;
+    private Cache cache;
 
     /**
      * API definition
@@ -57,6 +61,50 @@ public class Summary {
         this.api = API.create(url, token, Remote.class);
     }
 
+    /**
+     * Creates a Summary instance with request body compression.
+     *
+     * @param url API url
+     * @param token API token
+     * @param compression request compression, can be null
+     */
+    public Summary(String url, String token, Compression compression) {
+        // Create API instance
+        this.api = API.create(url, token, compression, Remote.class);
+    }
+
+    /**
+     * Creates a Summary instance that load balances calls across API replicas.
+     *
+     * @param urls API urls
+     * @param token API token
+     */
+    public Summary(List<String> urls, String token) {
+        // Create API instance
+        this.api = API.balanced(urls, token, Remote.class);
+    }
+
+    /**
+     * Sets the batching policy for batch methods. Large inputs are split into chunks that run concurrently.
+     * Use {@link LengthBatching} to group texts of similar length for mixed-length inputs. Defaults to null,
+     * which sends each batch as a single request.
+     *
+     * @param batching batching policy, can be null
+     */
+    public void setBatching(Batching batching) {
+        this.batching = batching;
+    }
+
+    /**
+     * Sets the response cache. Single and batch calls check the cache first and only send cache misses
+     * to the server. Defaults to null, which disables caching.
+     *
+     * @param cache response cache, can be null
+     */
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
     /**
      * Runs a summarization model against a block of text.
      *
@@ -66,9 +114,29 @@ public class Summary {
      * @return summary text
      */
     public String summary(String text, int minlength, int maxlength) throws IOException {
+        if (this.cache != null) {
+            return API.get(this.summaryAsync(text, minlength, maxlength));
+        }
+
         return this.api.summary(text, minlength != -1 ? minlength:null, maxlength != -1 ? maxlength:null).execute().body();
     }
 
+    /**
+     * Asynchronous version of {@link #summary(String, int, int)}.
+     *
+     * @param text text to summarize
+     * @param minlength minimum length for summary
+     * @param maxlength maximum length for summary
+     * @return future summary text
+     */
+    public CompletableFuture<String> summaryAsync(String text, int minlength, int maxlength) {
+        if (this.cache != null) {
+            return this.cache.apply("summary", text, Arrays.asList(minlength, maxlength), x -> API.async(this.api.summary(x, minlength != -1 ? minlength:null, maxlength != -1 ? maxlength:null)));
+        }
+
+        return API.async(this.api.summary(text, minlength != -1 ? minlength:null, maxlength != -1 ? maxlength:null));
+    }
+
     /**
      * Runs a summarization model against a block of text.
      *
@@ -78,6 +146,56 @@ public class Summary {
      * @return list of summary text
      */
     public List<String> batchsummary(List<String> texts, int minlength, int maxlength) throws IOException {
+        if (this.batching != null || this.cache != null || Deduplication.duplicates(texts)) {
+            return API.get(this.batchsummaryAsync(texts, minlength, maxlength));
+        }
+
+        return this.batchsummaryCall(texts, minlength, maxlength).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #batchsummary(List, int, int)}.
+     *
+     * @param texts list of text to summarize
+     * @param minlength minimum length for summary
+     * @param maxlength maximum length for summary
+     * @return future list of summary text
+     */
+    public CompletableFuture<List<String>> batchsummaryAsync(List<String> texts, int minlength, int maxlength) {
+        if (this.cache != null) {
+            return this.cache.batch("summary", texts, Arrays.asList(minlength, maxlength), x -> this.batchsummaryRun(x, minlength, maxlength));
+        }
+
+        return this.batchsummaryRun(texts, minlength, maxlength);
+    }
+
+    /**
+     * Runs a batchsummary request over distinct texts, applying the batching policy if set.
+     *
+     * @param texts list of text to summarize
+     * @param minlength minimum length for summary
+     * @param maxlength maximum length for summary
+     * @return future results
+     */
+    private CompletableFuture<List<String>> batchsummaryRun(List<String> texts, int minlength, int maxlength) {
+        return Deduplication.apply("batchsummary", texts, x -> {
+            if (this.batching != null) {
+                return this.batching.apply(x, chunk -> API.async(this.batchsummaryCall(chunk, minlength, maxlength)));
+            }
+
+            return API.async(this.batchsummaryCall(x, minlength, maxlength));
+        });
+    }
+
+    /**
+     * Builds a batchsummary call.
+     *
+     * @param texts list of text to summarize
+     * @param minlength minimum length for summary
+     * @param maxlength maximum length for summary
+     * @return call
+     */
+    private Call<List<String>> batchsummaryCall(List<String> texts, int minlength, int maxlength) {
         // Post parameters
         HashMap<String, Object> params = new HashMap<String, Object>();
         params.put("texts", texts);
@@ -89,6 +207,6 @@ public class Summary {
             params.put("maxlength", maxlength);
         }
 
-        return this.api.batchsummary(params).execute().body();
+        return this.api.batchsummary(params);
     }
 }
@@ -3,6 +3,7 @@ package txtai;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 import retrofit2.http.Body;
@@ -16,6 +17,7 @@ import retrofit2.http.Query;
 @SuppressWarnings("rawtypes")
 public class Textractor {
     private Remote api;
+    private Batching batching;
 
     /**
      * API definition
@@ -57,6 +59,16 @@ public class Textractor {
         this.api = API.create(url, token, Remote.class);
     }
 
+    /**
+     * Sets the batching policy for batch methods. Large inputs are split into chunks that run concurrently.
+     * Defaults to null, which sends each batch as a single request.
+     *
+     * @param batching batching policy, can be null
+     */
+    public void setBatching(Batching batching) {
+        this.batching = batching;
+    }
+
     /**
      * Extracts text from a file at path.
      * 
@@ -67,6 +79,16 @@ public class Textractor {
         return this.api.textract(file).execute().body();
     }
 
+    /**
+     * Asynchronous version of {@link #textract(String)}.
+     *
+     * @param file file to extract text
+     * @return future extracted text
+     */
+    public CompletableFuture<Object> textractAsync(String file) {
+        return API.async(this.api.textract(file));
+    }
+
     /**
      * Extracts text from a file at path.
      * 
@@ -74,10 +96,38 @@ public class Textractor {
      * @return list of extracted text
      */
     public List<Object> batchtextract(List<String> files) throws IOException {
+        if (this.batching != null) {
+            return API.get(this.batchtextractAsync(files));
+        }
+
+        return this.batchtextractCall(files).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #batchtextract(List)}.
+     *
+     * @param files list of files to extract text
+     * @return future list of extracted text
+     */
+    public CompletableFuture<List<Object>> batchtextractAsync(List<String> files) {
+        if (this.batching != null) {
+            return this.batching.apply(files, chunk -> API.async(this.batchtextractCall(chunk)));
+        }
+
+        return API.async(this.batchtextractCall(files));
+    }
+
+    /**
+     * Builds a batchtextract call.
+     *
+     * @param files list of files to extract text
+     * @return call
+     */
+    private Call<List<Object>> batchtextractCall(List<String> files) {
         // Post parameters
         HashMap<String, Object> params = new HashMap<String, Object>();
         params.put("files", files);
 
-        return this.api.batchtextract(params).execute().body();
+        return this.api.batchtextract(params);
     }
 }
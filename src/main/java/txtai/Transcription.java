@@ -3,6 +3,7 @@ package txtai;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 import retrofit2.http.Body;
@@ -16,6 +17,7 @@ import retrofit2.http.Query;
 @SuppressWarnings("rawtypes")
 public class Transcription {
     private Remote api;
+    private Batching batching;
 
     /**
      * API definition
@@ -57,6 +59,27 @@ public class Transcription {
         this.api = API.create(url, token, Remote.class);
     }
 
+    /**
+     * Creates a Transcription instance that load balances calls across API replicas.
+     *
+     * @param urls API urls
+     * @param token API token
+     */
+    public Transcription(List<String> urls, String token) {
+        // Create API instance
+        this.api = API.balanced(urls, token, Remote.class);
+    }
+
+    /**
+     * Sets the batching policy for batch methods. Large inputs are split into chunks that run concurrently.
+     * Defaults to null, which sends each batch as a single request.
+     *
+     * @param batching batching policy, can be null
+     */
+    public void setBatching(Batching batching) {
+        this.batching = batching;
+    }
+
     /**
      * Transcribes audio files to text.
      * 
@@ -67,6 +90,16 @@ public class Transcription {
         return this.api.transcribe(file).execute().body();
     }
 
+    /**
+     * Asynchronous version of {@link #transcribe(String)}.
+     *
+     * @param file file to transcribe
+     * @return future transcribed text
+     */
+    public CompletableFuture<String> transcribeAsync(String file) {
+        return API.async(this.api.transcribe(file));
+    }
+
     /**
      * Transcribes audio files to text.
      * 
@@ -74,10 +107,38 @@ public class Transcription {
      * @return list of transcribed text
      */
     public List<String> batchtranscribe(List<String> files) throws IOException {
+        if (this.batching != null) {
+            return API.get(this.batchtranscribeAsync(files));
+        }
+
+        return this.batchtranscribeCall(files).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #batchtranscribe(List)}.
+     *
+     * @param files list of files to transcribe
+     * @return future list of transcribed text
+     */
+    public CompletableFuture<List<String>> batchtranscribeAsync(List<String> files) {
+        if (this.batching != null) {
+            return this.batching.apply(files, chunk -> API.async(this.batchtranscribeCall(chunk)));
+        }
+
+        return API.async(this.batchtranscribeCall(files));
+    }
+
+    /**
+     * Builds a batchtranscribe call.
+     *
+     * @param files list of files to transcribe
+     * @return call
+     */
+    private Call<List<String>> batchtranscribeCall(List<String> files) {
         // Post parameters
         HashMap<String, Object> params = new HashMap<String, Object>();
         params.put("files", files);
 
-        return this.api.batchtranscribe(params).execute().body();
+        return this.api.batchtranscribe(params);
     }
 }
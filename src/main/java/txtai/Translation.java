@@ -1,8 +1,10 @@
 package txtai;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import retrofit2.Call;
 import retrofit2.http.Body;
@@ -16,6 +18,9 @@ import retrofit2.http.Query;
 @SuppressWarnings("rawtypes")
 public class Translation {
     private Remote api;
+    private Batching batching;
+    private Cache cache;
+    private Coalescing coalescing;
 
     /**
      * API definition
@@ -57,6 +62,48 @@ public class Translation {
         this.api = API.create(url, token, Remote.class);
     }
 
+    /**
+     * Creates a Translation instance that load balances calls across API replicas.
+     *
+     * @param urls API urls
+     * @param token API token
+     */
+    public Translation(List<String> urls, String token) {
+        // Create API instance
+        this.api = API.balanced(urls, token, Remote.class);
+    }
+
+    /**
+     * Sets the batching policy for batch methods. Large inputs are split into chunks that run concurrently.
+     * Defaults to null, which sends each batch as a single request.
+     *
+     * @param batching batching policy, can be null
+     */
+    public void setBatching(Batching batching) {
+        this.batching = batching;
+    }
+
+    /**
+     * Sets the response cache. Single and batch calls check the cache first and only send cache misses
+     * to the server. Defaults to null, which disables caching.
+     *
+     * @param cache response cache, can be null
+     */
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Sets the coalescing policy for single item calls. Concurrent calls are merged into batch requests.
+     * Defaults to null, which sends each call as its own request. A policy can be shared
+     * across clients, calls are only merged with calls from the same client.
+     *
+     * @param coalescing coalescing policy, can be null
+     */
+    public void setCoalescing(Coalescing coalescing) {
+        this.coalescing = coalescing;
+    }
+
     /**
      * Translates text from source language into target language.
      * 
@@ -66,9 +113,29 @@ public class Translation {
      * @return translated text
      */
     public String translate(String text, String target, String source) throws IOException {
+        if (this.cache != null || this.coalescing != null) {
+            return API.get(this.translateAsync(text, target, source));
+        }
+
         return this.api.translate(text, target, source).execute().body();
     }
 
+    /**
+     * Asynchronous version of {@link #translate(String, String, String)}.
+     *
+     * @param text text to translate
+     * @param target target language code, defaults to "en"
+     * @param source source language code, detects language if not provided
+     * @return future translated text
+     */
+    public CompletableFuture<String> translateAsync(String text, String target, String source) {
+        if (this.cache != null) {
+            return this.cache.apply("translate", text, Arrays.asList(target, source), x -> this.translateRun(x, target, source));
+        }
+
+        return this.translateRun(text, target, source);
+    }
+
     /**
      * Translates text from source language into target language.
      * 
@@ -78,6 +145,73 @@ public class Translation {
      * @return list of translated text
      */
     public List<String> batchtranslate(List<String> texts, String target, String source) throws IOException {
+        if (this.batching != null || this.cache != null || Deduplication.duplicates(texts)) {
+            return API.get(this.batchtranslateAsync(texts, target, source));
+        }
+
+        return this.batchtranslateCall(texts, target, source).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #batchtranslate(List, String, String)}.
+     *
+     * @param texts list of text to translate
+     * @param target target language code, defaults to "en"
+     * @param source source language code, detects language if not provided
+     * @return future list of translated text
+     */
+    public CompletableFuture<List<String>> batchtranslateAsync(List<String> texts, String target, String source) {
+        if (this.cache != null) {
+            return this.cache.batch("translate", texts, Arrays.asList(target, source), x -> this.batchtranslateRun(x, target, source));
+        }
+
+        return this.batchtranslateRun(texts, target, source);
+    }
+
+    /**
+     * Runs a translate request, applying the coalescing policy if set.
+     *
+     * @param text text to translate
+     * @param target target language code, defaults to "en"
+     * @param source source language code, detects language if not provided
+     * @return future result
+     */
+    private CompletableFuture<String> translateRun(String text, String target, String source) {
+        if (this.coalescing != null) {
+            return this.coalescing.submit(Arrays.asList(this, "translate", target, source), text,
+                                          x -> this.batchtranslateRun(x, target, source));
+        }
+
+        return API.async(this.api.translate(text, target, source));
+    }
+
+    /**
+     * Runs a batchtranslate request over distinct texts, applying the batching policy if set.
+     *
+     * @param texts list of text to translate
+     * @param target target language code, defaults to "en"
+     * @param source source language code, detects language if not provided
+     * @return future results
+     */
+    private CompletableFuture<List<String>> batchtranslateRun(List<String> texts, String target, String source) {
+        return Deduplication.apply("batchtranslate", texts, x -> {
+            if (this.batching != null) {
+                return this.batching.apply(x, chunk -> API.async(this.batchtranslateCall(chunk, target, source)));
+            }
+
+            return API.async(this.batchtranslateCall(x, target, source));
+        });
+    }
+
+    /**
+     * Builds a batchtranslate call.
+     *
+     * @param texts list of text to translate
+     * @param target target language code, defaults to "en"
+     * @param source source language code, detects language if not provided
+     * @return call
+     */
+    private Call<List<String>> batchtranslateCall(List<String> texts, String target, String source) {
         // Post parameters
         HashMap<String, Object> params = new HashMap<String, Object>();
         params.put("texts", texts);
@@ -89,6 +223,6 @@ public class Translation {
             params.put("source", source);
         }
 
-        return this.api.batchtranslate(params).execute().body();
+        return this.api.batchtranslate(params);
     }
 }
@@ -0,0 +1,201 @@
+package txtai;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * Shared http transport registry. All txtai clients share a single connection pool and dispatcher. Retrofit
+ * instances are cached per base url and token, so creating many pipeline instances doesn't open new sockets
+ * or threads.
+ */
+public class Transport {
+    // Connection pool settings
+    private static int connections = 32;
+    private static long keepalive = 5;
+    private static TimeUnit unit = TimeUnit.MINUTES;
+
+    // Dispatcher settings
+    private static int requests = 256;
+    private static int hostrequests = 64;
+
+    // Shared base client
+    private static OkHttpClient shared;
+
+    // Installed metrics registry
+    private static volatile Metrics metrics;
+
+    // Shared JSON converter
+    private static final Gson gson = Vectors.register(new GsonBuilder())
+        .registerTypeAdapter(SearchResults.class, new SearchResults.Adapter())
+        .registerTypeAdapter(IndexResults.class, new IndexResults.Adapter())
+        .create();
+
+    // Retrofit instances by url and token
+    private static final Map<String, Retrofit> registry = new ConcurrentHashMap<>();
+
+    /**
+     * Configures the shared transport. Clients created after this call use the new settings. The previous
+     * shared client is shut down: its dispatcher threads are stopped and idle connections are closed.
+     * Existing clients keep the previous transport, so recreate them after reconfiguring. Their synchronous
+     * calls still work, asynchronous calls are rejected.
+     *
+     * @param connections maximum number of idle connections to keep in the pool
+     * @param keepalive how long to keep idle connections alive
+     * @param unit keepalive time unit
+     * @param requests maximum number of concurrent async requests
+     * @param hostrequests maximum number of concurrent async requests per host
+     */
+    public static synchronized void configure(int connections, long keepalive, TimeUnit unit, int requests, int hostrequests) {
+        Transport.connections = connections;
+        Transport.keepalive = keepalive;
+        Transport.unit = unit;
+        Transport.requests = requests;
+        Transport.hostrequests = hostrequests;
+
+        // Release previous client, rebuild shared client on next use
+        Transport.close(Transport.shared);
+        Transport.shared = null;
+        registry.clear();
+    }
+
+    /**
+     * Gets the shared base http client. Clients derived with newBuilder() share the connection pool and dispatcher.
+     *
+     * @return shared client
+     */
+    public static synchronized OkHttpClient shared() {
+        if (shared == null) {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(requests);
+            dispatcher.setMaxRequestsPerHost(hostrequests);
+
+            shared = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(connections, keepalive, unit))
+                .dispatcher(dispatcher)
+                .eventListenerFactory(Instrumentation.FACTORY)
+                .build();
+        }
+
+        return shared;
+    }
+
+    /**
+     * Gets a Retrofit instance for url and token. Instances are created once and reused.
+     *
+     * @param url API url
+     * @param token API token
+     * @return Retrofit instance
+     */
+    public static Retrofit retrofit(String url, String token) {
+        return retrofit(url, token, null);
+    }
+
+    /**
+     * Gets a Retrofit instance for url, token and request compression. Instances are created once and reused.
+     *
+     * @param url API url
+     * @param token API token
+     * @param compression request compression, can be null
+     * @return Retrofit instance
+     */
+    public static Retrofit retrofit(String url, String token, Compression compression) {
+        return retrofit(Collections.singletonList(url), token, compression);
+    }
+
+    /**
+     * Gets a load balanced Retrofit instance for a list of urls and token. Instances are created once
+     * and reused, each with its own {@link Balancer}.
+     *
+     * @param urls API urls
+     * @param token API token
+     * @return Retrofit instance
+     */
+    public static Retrofit retrofit(List<String> urls, String token) {
+        return retrofit(urls, token, null);
+    }
+
+    /**
+     * Gets a Retrofit instance for a list of urls, token and request compression. Multiple urls are load
+     * balanced with a {@link Balancer}. Instances are created once and reused.
+     *
+     * @param urls API urls
+     * @param token API token
+     * @param compression request compression, can be null
+     * @return Retrofit instance
+     */
+    public static Retrofit retrofit(List<String> urls, String token, Compression compression) {
+        String key = String.join(",", urls) + "\n" + (token != null ? token : "") + "\n" + (compression != null ? compression.threshold() : -1);
+
+        return registry.computeIfAbsent(key, k -> {
+            Balancer balancer = urls.size() > 1 ? new Balancer(urls) : null;
+            return new Retrofit.Builder()
+                .baseUrl(urls.get(0))
+                .client(API.client(token, balancer, compression))
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build();
+        });
+    }
+
+    /**
+     * Installs a metrics registry. All clients report call samples to this registry, including clients
+     * created before this call. Set to null to disable metrics.
+     *
+     * @param metrics metrics registry
+     */
+    public static void setMetrics(Metrics metrics) {
+        Transport.metrics = metrics;
+    }
+
+    /**
+     * Gets the installed metrics registry.
+     *
+     * @return metrics registry, null if metrics are disabled
+     */
+    public static Metrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the shared Gson instance used to convert requests and responses.
+     *
+     * @return Gson instance
+     */
+    public static Gson gson() {
+        return gson;
+    }
+
+    /**
+     * Closes idle connections and clears all cached instances.
+     */
+    public static synchronized void shutdown() {
+        Transport.close(shared);
+        shared = null;
+
+        registry.clear();
+    }
+
+    /**
+     * Stops the dispatcher threads and closes idle connections of a client.
+     *
+     * @param client http client, can be null
+     */
+    private static void close(OkHttpClient client) {
+        if (client != null) {
+            client.dispatcher().executorService().shutdown();
+            client.connectionPool().evictAll();
+        }
+    }
+}
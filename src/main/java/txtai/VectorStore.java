@@ -0,0 +1,392 @@
+package txtai;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent, memory-mapped store for embeddings vectors. Vectors are stored as a fixed-width little-endian
+ * float32 matrix in one file and ids in a companion id table. Stores are append only. Reads are served from
+ * memory-mapped segments without copying vectors onto the heap.
+ *
+ * Matrix file layout: int magic, int version, int dimensions, then rows of dimensions float32 values.
+ * Id table layout: one entry per row, each a short byte length followed by UTF-8 bytes.
+ *
+ * Appends are exclusive, reads can run concurrently with each other.
+ */
+public class VectorStore implements Closeable {
+    // File format header
+    private static final int MAGIC = 0x54585656;
+    private static final int VERSION = 1;
+    private static final int HEADER = 12;
+
+    // Maximum bytes per mapped segment
+    private static final long SEGMENT = 1L << 30;
+
+    private final File file;
+    private final RandomAccessFile matrix;
+    private final RandomAccessFile table;
+    private final int dimensions;
+    private final int rowbytes;
+    private final int segmentrows;
+
+    // Row ids and id to row lookup
+    private final List<String> ids;
+    private final Map<String, Integer> rows;
+
+    // Mapped read segments
+    private final List<MappedByteBuffer> segments;
+
+    /**
+     * Visitor for bulk scans.
+     */
+    public interface Visitor {
+        /**
+         * Called once per row.
+         *
+         * @param row row index
+         * @param id row id
+         * @param vector read-only view of the row vector
+         */
+        void visit(int row, String id, FloatBuffer vector);
+    }
+
+    /**
+     * Opens or creates a VectorStore.
+     *
+     * @param file matrix file, the id table is stored alongside with an .ids suffix
+     * @param dimensions vector dimensions, required when creating a new store, validated on open if positive
+     */
+    public VectorStore(File file, int dimensions) throws IOException {
+        // New stores need dimensions for the header, check before creating any files
+        if (dimensions < 1 && file.length() == 0) {
+            throw new IllegalArgumentException("dimensions must be positive when creating a new store");
+        }
+
+        this.file = file;
+        this.matrix = new RandomAccessFile(file, "rw");
+        this.table = new RandomAccessFile(new File(file.getPath() + ".ids"), "rw");
+
+        try {
+            if (this.matrix.length() == 0) {
+                this.matrix.writeInt(MAGIC);
+                this.matrix.writeInt(VERSION);
+                this.matrix.writeInt(dimensions);
+            }
+            else {
+                this.matrix.seek(0);
+                if (this.matrix.readInt() != MAGIC || this.matrix.readInt() != VERSION) {
+                    throw new IOException("Invalid vector store: " + file);
+                }
+
+                int stored = this.matrix.readInt();
+                if (dimensions > 0 && stored != dimensions) {
+                    throw new IOException("Expected " + dimensions + " dimensions, store has " + stored);
+                }
+
+                dimensions = stored;
+            }
+
+            this.dimensions = dimensions;
+            this.rowbytes = dimensions * 4;
+            this.segmentrows = (int)Math.max(1, SEGMENT / this.rowbytes);
+
+            this.ids = new ArrayList<>();
+            this.rows = new HashMap<>();
+            this.segments = new ArrayList<>();
+
+            this.load();
+        }
+        catch (IOException | RuntimeException ex) {
+            this.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Opens an existing VectorStore.
+     *
+     * @param file matrix file
+     * @return VectorStore
+     */
+    public static VectorStore open(File file) throws IOException {
+        if (!file.exists()) {
+            throw new IOException("Vector store not found: " + file);
+        }
+
+        return new VectorStore(file, 0);
+    }
+
+    /**
+     * Transforms texts with embeddings and appends the resulting vectors.
+     *
+     * @param embeddings embeddings instance
+     * @param ids list of ids
+     * @param texts list of text
+     */
+    public void append(Embeddings embeddings, List<String> ids, List<String> texts) throws IOException {
+        this.append(ids, embeddings.vectors(texts));
+    }
+
+    /**
+     * Appends a batch of vectors.
+     *
+     * @param ids list of ids
+     * @param vectors vectors, one row per id
+     */
+    public synchronized void append(List<String> ids, float[][] vectors) throws IOException {
+        if (ids.size() != vectors.length) {
+            throw new IllegalArgumentException("ids and vectors must be the same length");
+        }
+
+        for (float[] vector : vectors) {
+            if (vector.length != this.dimensions) {
+                throw new IllegalArgumentException("Expected " + this.dimensions + " dimensions, received " + vector.length);
+            }
+        }
+
+        // Encode ids up front, id table entries store the length as an unsigned short
+        List<byte[]> encoded = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("Id is " + bytes.length + " bytes, maximum is " + 0xFFFF);
+            }
+
+            encoded.add(bytes);
+        }
+
+        // Write vectors
+        FileChannel channel = this.matrix.getChannel();
+        ByteBuffer buffer = ByteBuffer.allocate(this.rowbytes * Math.min(vectors.length, 1024)).order(ByteOrder.LITTLE_ENDIAN);
+
+        long position = HEADER + (long)this.ids.size() * this.rowbytes;
+        for (int i = 0; i < vectors.length; i++) {
+            buffer.asFloatBuffer().put(vectors[i]);
+            buffer.position(buffer.position() + this.rowbytes);
+
+            if (!buffer.hasRemaining() || i == vectors.length - 1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                buffer.clear();
+            }
+        }
+
+        // Write ids
+        this.table.seek(this.table.length());
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(this.table.getChannel())));
+        for (byte[] bytes : encoded) {
+            output.writeShort(bytes.length);
+            output.write(bytes);
+        }
+        output.flush();
+
+        for (String id : ids) {
+            this.rows.put(id, this.ids.size());
+            this.ids.add(id);
+        }
+    }
+
+    /**
+     * Number of rows in this store.
+     *
+     * @return number of rows
+     */
+    public synchronized int size() {
+        return this.ids.size();
+    }
+
+    /**
+     * Vector dimensions.
+     *
+     * @return dimensions
+     */
+    public int dimensions() {
+        return this.dimensions;
+    }
+
+    /**
+     * Gets the id for a row.
+     *
+     * @param row row index
+     * @return id
+     */
+    public synchronized String id(int row) {
+        return this.ids.get(row);
+    }
+
+    /**
+     * Gets the row for an id.
+     *
+     * @param id id
+     * @return row index or -1 if not found
+     */
+    public synchronized int row(String id) {
+        Integer row = this.rows.get(id);
+        return row != null ? row : -1;
+    }
+
+    /**
+     * Gets a zero-copy, read-only view of a row vector.
+     *
+     * @param row row index
+     * @return vector view
+     */
+    public FloatBuffer get(int row) throws IOException {
+        MappedByteBuffer segment = this.segment(row);
+
+        ByteBuffer view = segment.duplicate();
+        int offset = (row % this.segmentrows) * this.rowbytes;
+        view.position(offset).limit(offset + this.rowbytes);
+
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+    }
+
+    /**
+     * Gets a zero-copy, read-only view of the vector for id.
+     *
+     * @param id id
+     * @return vector view or null if not found
+     */
+    public FloatBuffer get(String id) throws IOException {
+        int row = this.row(id);
+        return row != -1 ? this.get(row) : null;
+    }
+
+    /**
+     * Copies a row vector into an array.
+     *
+     * @param row row index
+     * @param vector output array
+     * @return vector
+     */
+    public float[] get(int row, float[] vector) throws IOException {
+        this.get(row).get(vector, 0, this.dimensions);
+        return vector;
+    }
+
+    /**
+     * Visits every row in order without copying vectors onto the heap.
+     *
+     * @param visitor row visitor
+     */
+    public void scan(Visitor visitor) throws IOException {
+        int size = this.size();
+        for (int start = 0; start < size; start += this.segmentrows) {
+            FloatBuffer vectors = this.segment(start).duplicate().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+
+            int end = Math.min(size, start + this.segmentrows);
+            for (int row = start; row < end; row++) {
+                int offset = (row - start) * this.dimensions;
+                vectors.limit(offset + this.dimensions).position(offset);
+                visitor.visit(row, this.id(row), vectors.slice());
+            }
+        }
+    }
+
+    /**
+     * Flushes appended data to disk.
+     */
+    public synchronized void flush() throws IOException {
+        this.matrix.getChannel().force(false);
+        this.table.getChannel().force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            this.segments.clear();
+        }
+
+        try {
+            this.matrix.close();
+        }
+        finally {
+            this.table.close();
+        }
+    }
+
+    /**
+     * Gets the mapped segment holding row. Segments are mapped on first use and remapped when they've grown.
+     *
+     * @param row row index
+     * @return mapped segment
+     */
+    private synchronized MappedByteBuffer segment(int row) throws IOException {
+        if (row < 0 || row >= this.ids.size()) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range for store " + this.file);
+        }
+
+        int index = row / this.segmentrows;
+        int start = index * this.segmentrows;
+        int count = Math.min(this.ids.size() - start, this.segmentrows);
+
+        while (this.segments.size() <= index) {
+            this.segments.add(null);
+        }
+
+        MappedByteBuffer segment = this.segments.get(index);
+        if (segment == null || segment.capacity() < (long)count * this.rowbytes) {
+            segment = this.matrix.getChannel().map(MapMode.READ_ONLY, HEADER + (long)start * this.rowbytes, (long)count * this.rowbytes);
+            this.segments.set(index, segment);
+        }
+
+        return segment;
+    }
+
+    /**
+     * Loads the id table, truncating any partially written trailing rows.
+     */
+    private void load() throws IOException {
+        long bytes = this.table.length();
+        this.table.seek(0);
+
+        DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(this.table.getChannel())));
+
+        long position = 0;
+        while (position + 2 <= bytes) {
+            int length = input.readUnsignedShort();
+            if (position + 2 + length > bytes) {
+                break;
+            }
+
+            byte[] data = new byte[length];
+            input.readFully(data);
+            position += 2 + length;
+
+            String id = new String(data, StandardCharsets.UTF_8);
+            this.rows.put(id, this.ids.size());
+            this.ids.add(id);
+        }
+
+        // Only keep rows present in both files
+        long matrixrows = (this.matrix.length() - HEADER) / this.rowbytes;
+        while (this.ids.size() > matrixrows) {
+            String id = this.ids.remove(this.ids.size() - 1);
+            this.rows.remove(id);
+            position -= 2 + id.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        this.table.setLength(position);
+        this.matrix.setLength(HEADER + (long)this.ids.size() * this.rowbytes);
+    }
+}
@@ -0,0 +1,207 @@
+package txtai;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Primitive embeddings vector support. Provides streaming Gson adapters that decode JSON arrays directly into
+ * float arrays without creating boxed values.
+ */
+public class Vectors {
+    /**
+     * Adapter for float[] vectors.
+     */
+    public static class VectorAdapter extends TypeAdapter<float[]> {
+        @Override
+        public void write(JsonWriter writer, float[] vector) throws IOException {
+            if (vector == null) {
+                writer.nullValue();
+                return;
+            }
+
+            writer.beginArray();
+            for (float value : vector) {
+                writer.value(value);
+            }
+            writer.endArray();
+        }
+
+        @Override
+        public float[] read(JsonReader reader) throws IOException {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+
+            return Vectors.read(reader);
+        }
+    }
+
+    /**
+     * Adapter for float[][] matrices.
+     */
+    public static class MatrixAdapter extends TypeAdapter<float[][]> {
+        @Override
+        public void write(JsonWriter writer, float[][] matrix) throws IOException {
+            if (matrix == null) {
+                writer.nullValue();
+                return;
+            }
+
+            VectorAdapter adapter = new VectorAdapter();
+
+            writer.beginArray();
+            for (float[] vector : matrix) {
+                adapter.write(writer, vector);
+            }
+            writer.endArray();
+        }
+
+        @Override
+        public float[][] read(JsonReader reader) throws IOException {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+
+            List<float[]> rows = new ArrayList<>();
+
+            reader.beginArray();
+            while (reader.hasNext()) {
+                rows.add(Vectors.read(reader));
+            }
+            reader.endArray();
+
+            return rows.toArray(new float[rows.size()][]);
+        }
+    }
+
+    /**
+     * Registers vector adapters with a GsonBuilder.
+     *
+     * @param builder GsonBuilder
+     * @return builder
+     */
+    public static GsonBuilder register(GsonBuilder builder) {
+        return builder
+            .registerTypeAdapter(float[].class, new VectorAdapter())
+            .registerTypeAdapter(float[][].class, new MatrixAdapter());
+    }
+
+    /**
+     * Reads a JSON array of numbers into a float array.
+     *
+     * @param reader JsonReader positioned at the start of an array
+     * @return vector
+     */
+    public static float[] read(JsonReader reader) throws IOException {
+        reader.beginArray();
+        float[] vector = Vectors.elements(reader);
+        reader.endArray();
+
+        return vector;
+    }
+
+    /**
+     * Reads the remaining numbers of a JSON array into a float array. Doesn't consume the end of the array.
+     *
+     * @param reader JsonReader positioned inside an array
+     * @return vector
+     */
+    static float[] elements(JsonReader reader) throws IOException {
+        float[] vector = new float[64];
+        int size = 0;
+
+        while (reader.hasNext()) {
+            if (size == vector.length) {
+                vector = Arrays.copyOf(vector, size << 1);
+            }
+
+            vector[size++] = (float)reader.nextDouble();
+        }
+
+        return size == vector.length ? vector : Arrays.copyOf(vector, size);
+    }
+
+    /**
+     * Inner product of two vectors.
+     *
+     * @param a first vector
+     * @param b second vector
+     * @return inner product
+     */
+    public static float dot(float[] a, float[] b) {
+        // Independent accumulators allow the JIT to pipeline multiply-adds
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+
+        int i = 0;
+        for (int bound = a.length & ~3; i < bound; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+
+        for (; i < a.length; i++) {
+            s0 += a[i] * b[i];
+        }
+
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Inner product of a vector and a row of a packed matrix.
+     *
+     * @param a vector
+     * @param matrix row-major matrix with rows of a.length values
+     * @param offset start of the row in matrix
+     * @return inner product
+     */
+    public static float dot(float[] a, float[] matrix, int offset) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+
+        int i = 0;
+        for (int bound = a.length & ~3; i < bound; i += 4) {
+            s0 += a[i] * matrix[offset + i];
+            s1 += a[i + 1] * matrix[offset + i + 1];
+            s2 += a[i + 2] * matrix[offset + i + 2];
+            s3 += a[i + 3] * matrix[offset + i + 3];
+        }
+
+        for (; i < a.length; i++) {
+            s0 += a[i] * matrix[offset + i];
+        }
+
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Copies and normalizes a vector to unit length.
+     *
+     * @param vector input vector
+     * @return normalized copy
+     */
+    public static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+
+        norm = Math.sqrt(norm);
+
+        float[] output = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            output[i] = norm > 0 ? (float)(vector[i] / norm) : 0;
+        }
+
+        return output;
+    }
+}
@@ -1,8 +1,19 @@
 package txtai;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import retrofit2.Call;
 import retrofit2.http.Body;
@@ -14,6 +25,7 @@ import retrofit2.http.POST;
 @SuppressWarnings("rawtypes")
 public class Workflow {
     private Remote api;
+    private Batching batching;
 
     /**
      * API definition
@@ -52,6 +64,30 @@ public class Workflow {
         this.api = API.create(url, token, Remote.class);
     }
 
+    /**
+     * Creates a Workflow instance with request body compression.
+     *
+     * @param url API url
+     * @param token API token
+     * @param compression request compression, can be null
+     */
+    public Workflow(String url, String token, Compression compression) {
+        // Create API instance
+        this.api = API.create(url, token, compression, Remote.class);
+    }
+
+    /**
+     * Sets the batching policy for batch methods. Large inputs are split into chunks that run concurrently.
+     * Workflows can expand or filter elements, chunk outputs are concatenated in chunk order. Policies that
+     * reorder inputs, such as {@link LengthBatching}, require workflows that return one output per input, so
+     * outputs can be put back in input order. Defaults to null, which sends each batch as a single request.
+     *
+     * @param batching batching policy, can be null
+     */
+    public void setBatching(Batching batching) {
+        this.batching = batching;
+    }
+
     /**
      * Executes a named workflow using elements as input.
      *
@@ -60,11 +96,169 @@ public class Workflow {
      * @return list of processed elements
      */
     public List<Object> workflow(String name, List<String> elements) throws IOException {
+        if (this.batching != null) {
+            return API.get(this.workflowAsync(name, elements));
+        }
+
+        return this.workflowCall(name, elements).execute().body();
+    }
+
+    /**
+     * Asynchronous version of {@link #workflow(String, List)}.
+     *
+     * @param name workflow name
+     * @param elements list of elements to run through workflow
+     * @return future list of processed elements
+     */
+    public CompletableFuture<List<Object>> workflowAsync(String name, List<String> elements) {
+        if (this.batching != null) {
+            return this.batching.concat(elements, chunk -> API.async(this.workflowCall(name, chunk)));
+        }
+
+        return API.async(this.workflowCall(name, elements));
+    }
+
+    /**
+     * Executes a named workflow over a stream of elements. Elements are cut into batches and up to inflight
+     * batches run concurrently. Results are returned lazily in input order. Elements are only read as
+     * requests are sent, so memory stays bounded by batch and inflight regardless of input size.
+     *
+     * Request failures are thrown as UncheckedIOExceptions from the iterator.
+     *
+     * @param name workflow name
+     * @param elements elements iterator
+     * @param batch number of elements per request
+     * @param inflight maximum number of concurrent requests
+     * @return iterator over processed elements
+     */
+    public Iterator<Object> stream(String name, Iterator<String> elements, int batch, int inflight) {
+        return new Results(name, elements, batch, inflight);
+    }
+
+    /**
+     * Stream version of {@link #stream(String, Iterator, int, int)}. Closing the returned stream cancels
+     * outstanding requests and closes elements.
+     *
+     * @param name workflow name
+     * @param elements elements stream
+     * @param batch number of elements per request
+     * @param inflight maximum number of concurrent requests
+     * @return stream of processed elements
+     */
+    public Stream<Object> stream(String name, Stream<String> elements, int batch, int inflight) {
+        Results results = new Results(name, elements.iterator(), batch, inflight);
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(results, Spliterator.ORDERED), false)
+            .onClose(() -> {
+                results.close();
+                elements.close();
+            });
+    }
+
+    /**
+     * Ordered, pipelined workflow results.
+     */
+    private class Results implements Iterator<Object> {
+        private final String name;
+        private final Iterator<String> elements;
+        private final int batch;
+        private final int inflight;
+
+        // Requests in input order
+        private final Deque<CompletableFuture<List<Object>>> pending;
+
+        // Results of the head batch
+        private List<Object> current;
+        private int index;
+
+        Results(String name, Iterator<String> elements, int batch, int inflight) {
+            if (batch < 1 || inflight < 1) {
+                throw new IllegalArgumentException("batch and inflight must be positive");
+            }
+
+            this.name = name;
+            this.elements = elements;
+            this.batch = batch;
+            this.inflight = inflight;
+            this.pending = new ArrayDeque<>();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.current == null || this.index >= this.current.size()) {
+                this.fill();
+                if (this.pending.isEmpty()) {
+                    return false;
+                }
+
+                // Take the head batch. Refilling is deferred until API.get(head) returns, so the head
+                // batch keeps counting against inflight while it's awaited
+                CompletableFuture<List<Object>> head = this.pending.poll();
+
+                try {
+                    this.current = API.get(head);
+                    this.index = 0;
+                }
+                catch (IOException ex) {
+                    this.close();
+                    throw new UncheckedIOException(ex);
+                }
+
+                // Refill while the caller consumes the head batch
+                this.fill();
+            }
+
+            return true;
+        }
+
+        @Override
+        public Object next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return this.current.get(this.index++);
+        }
+
+        /**
+         * Sends batches until inflight requests are running or elements are exhausted.
+         */
+        private void fill() {
+            while (this.pending.size() < this.inflight && this.elements.hasNext()) {
+                List<String> chunk = new ArrayList<>(this.batch);
+                while (chunk.size() < this.batch && this.elements.hasNext()) {
+                    chunk.add(this.elements.next());
+                }
+
+                this.pending.add(API.async(Workflow.this.workflowCall(this.name, chunk)));
+            }
+        }
+
+        /**
+         * Cancels outstanding requests.
+         */
+        void close() {
+            for (CompletableFuture<List<Object>> future : this.pending) {
+                future.cancel(true);
+            }
+
+            this.pending.clear();
+        }
+    }
+
+    /**
+     * Builds a workflow call.
+     *
+     * @param name workflow name
+     * @param elements list of elements to run through workflow
+     * @return call
+     */
+    private Call<List<Object>> workflowCall(String name, List<String> elements) {
         // Post parameters
         HashMap<String, Object> params = new HashMap<String, Object>();
         params.put("name", name);
         params.put("elements", elements);
 
-        return this.api.workflow(params).execute().body();
+        return this.api.workflow(params);
     }
 }
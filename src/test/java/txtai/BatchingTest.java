@@ -0,0 +1,150 @@
+package txtai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+/**
+ * Batching tests.
+ */
+public class BatchingTest {
+    @Test
+    public void testApply() throws Exception {
+        List<Integer> inputs = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        List<List<Integer>> chunks = Collections.synchronizedList(new ArrayList<>());
+
+        List<Integer> outputs = new Batching(3, 2).<Integer, Integer>apply(inputs, chunk -> {
+            chunks.add(chunk);
+            return CompletableFuture.completedFuture(chunk.stream().map(x -> x * 2).collect(Collectors.toList()));
+        }).get();
+
+        assertEquals(IntStream.range(0, 10).map(x -> x * 2).boxed().collect(Collectors.toList()), outputs);
+        assertEquals(4, chunks.size());
+        for (List<Integer> chunk : chunks) {
+            assertTrue(chunk.size() <= 3);
+        }
+    }
+
+    @Test
+    public void testParallelism() throws Exception {
+        List<Integer> inputs = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        CompletableFuture<List<Integer>> result = new Batching(2, 3).apply(inputs, chunk -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+
+            // Complete chunks asynchronously
+            return CompletableFuture.supplyAsync(() -> {
+                active.decrementAndGet();
+                return chunk;
+            });
+        });
+
+        assertEquals(inputs, result.get());
+        assertTrue(peak.get() <= 3);
+    }
+
+    @Test
+    public void testMismatch() throws InterruptedException {
+        List<String> inputs = Arrays.asList("a", "b", "c", "d");
+
+        CompletableFuture<List<String>> result = new Batching(2, 2).apply(inputs, chunk ->
+            CompletableFuture.completedFuture(chunk.subList(0, 1)));
+
+        try {
+            result.get();
+            fail("Expected failure");
+        }
+        catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testFailure() throws InterruptedException {
+        List<String> inputs = Arrays.asList("a", "b", "c", "d", "e", "f");
+        IOException error = new IOException("chunk failed");
+
+        CompletableFuture<List<String>> result = new Batching(2, 1).apply(inputs, chunk -> {
+            CompletableFuture<List<String>> future = new CompletableFuture<>();
+            if (chunk.contains("c")) {
+                future.completeExceptionally(error);
+            }
+            else {
+                future.complete(chunk);
+            }
+
+            return future;
+        });
+
+        try {
+            result.get();
+            fail("Expected failure");
+        }
+        catch (ExecutionException ex) {
+            assertEquals(error, ex.getCause());
+        }
+    }
+
+    @Test
+    public void testConcat() throws Exception {
+        List<Integer> inputs = IntStream.range(0, 7).boxed().collect(Collectors.toList());
+
+        // Each chunk expands to two outputs per input
+        List<Integer> outputs = new Batching(2, 2).<Integer, Integer>concat(inputs, chunk ->
+            CompletableFuture.completedFuture(chunk.stream().flatMap(x -> IntStream.of(x, x).boxed()).collect(Collectors.toList()))).get();
+
+        assertEquals(Arrays.asList(0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6), outputs);
+    }
+
+    @Test
+    public void testConcatReordered() throws Exception {
+        List<String> inputs = Arrays.asList("a", "bbbbbbbb", "cc", "dddddd", "e");
+
+        // Length batching sends longest first, outputs are put back in input order
+        List<String> outputs = new LengthBatching(8, 2, 2).<String, String>concat(inputs, chunk ->
+            CompletableFuture.completedFuture(chunk.stream().map(String::toUpperCase).collect(Collectors.toList()))).get();
+
+        assertEquals(Arrays.asList("A", "BBBBBBBB", "CC", "DDDDDD", "E"), outputs);
+    }
+
+    @Test
+    public void testConcatReorderedExpand() throws InterruptedException {
+        List<String> inputs = Arrays.asList("a", "bbbbbbbb", "cc", "dddddd", "e");
+
+        // Reordered chunks that expand can't be put back in input order
+        CompletableFuture<List<String>> result = new LengthBatching(8, 2, 2).concat(inputs, chunk ->
+            CompletableFuture.completedFuture(chunk.stream().flatMap(x -> Arrays.asList(x, x).stream()).collect(Collectors.toList())));
+
+        try {
+            result.get();
+            fail("Expected failure");
+        }
+        catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testSynchronousChunks() throws Exception {
+        List<Integer> inputs = IntStream.range(0, 200000).boxed().collect(Collectors.toList());
+
+        // Immediately completed chunks are launched in a loop, not recursively
+        List<Integer> outputs = new Batching(1, 1).<Integer, Integer>apply(inputs, CompletableFuture::completedFuture).get();
+        assertEquals(inputs, outputs);
+    }
+}
@@ -0,0 +1,107 @@
+package txtai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Cache tests.
+ */
+public class CacheTest {
+    @Test
+    public void testApply() throws Exception {
+        Cache cache = new Cache(10);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            String result = cache.<String, String>apply("label", "text", "params", input -> {
+                calls.incrementAndGet();
+                return CompletableFuture.completedFuture(input.toUpperCase());
+            }).get();
+
+            assertEquals("TEXT", result);
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    public void testParams() throws Exception {
+        Cache cache = new Cache(10);
+        cache.apply("label", "text", "a", input -> CompletableFuture.completedFuture("a")).get();
+
+        assertEquals("b", cache.apply("label", "text", "b", input -> CompletableFuture.completedFuture("b")).get());
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        Cache cache = new Cache(10);
+        cache.put(Cache.key("translate", "b", null), "B");
+
+        List<List<String>> loaded = new ArrayList<>();
+        List<String> outputs = cache.<String, String>batch("translate", Arrays.asList("a", "b", "c"), null, missing -> {
+            loaded.add(missing);
+            return CompletableFuture.completedFuture(missing.stream().map(String::toUpperCase).collect(Collectors.toList()));
+        }).get();
+
+        assertEquals(Arrays.asList("A", "B", "C"), outputs);
+        assertEquals(Arrays.asList(Arrays.asList("a", "c")), loaded);
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testBatchMismatch() throws InterruptedException {
+        Cache cache = new Cache(10);
+
+        CompletableFuture<List<String>> result = cache.batch("translate", Arrays.asList("a", "b"), null, missing ->
+            CompletableFuture.completedFuture(Arrays.asList("A")));
+
+        try {
+            result.get();
+            fail("Expected failure");
+        }
+        catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IOException);
+        }
+
+        // Partial results aren't cached
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEviction() {
+        Cache cache = new Cache(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertEquals(Integer.valueOf(1), cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(Integer.valueOf(3), cache.get("c"));
+    }
+
+    @Test
+    public void testExpiry() throws InterruptedException {
+        Cache cache = new Cache(10, 10, TimeUnit.MILLISECONDS);
+        cache.put("a", 1);
+
+        Thread.sleep(50);
+        assertNull(cache.get("a"));
+    }
+}
@@ -0,0 +1,159 @@
+package txtai;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import okio.Buffer;
+
+/**
+ * Codec round-trip, header validation and content negotiation tests.
+ */
+public class CodecTest {
+    private static final float[][] VECTORS = {{0.25f, -1.5f, 3.0f}, {1e-6f, Float.MAX_VALUE, 0f}};
+
+    private MockWebServer server;
+    private Embeddings embeddings;
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = new MockWebServer();
+        this.server.start();
+
+        this.embeddings = new Embeddings(this.server.url("/").toString());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.server.shutdown();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (Codec codec : Arrays.asList(Codec.JSON, Codec.BINARY, Codec.BASE64)) {
+            Buffer buffer = new Buffer();
+            codec.encode(VECTORS, buffer);
+
+            float[][] vectors = codec.decode(buffer);
+            assertEquals(codec.type(), VECTORS.length, vectors.length);
+            for (int i = 0; i < VECTORS.length; i++) {
+                assertArrayEquals(codec.type(), VECTORS[i], vectors[i], 0f);
+            }
+        }
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        for (Codec codec : Arrays.asList(Codec.BINARY, Codec.BASE64)) {
+            Buffer buffer = new Buffer();
+            codec.encode(new float[0][], buffer);
+
+            assertEquals(codec.type(), 0, codec.decode(buffer).length);
+        }
+    }
+
+    @Test
+    public void testBinaryOversizedHeader() {
+        Buffer buffer = new Buffer().writeIntLe(Integer.MAX_VALUE).writeIntLe(Integer.MAX_VALUE);
+        assertInvalid(Codec.BINARY, buffer);
+    }
+
+    @Test
+    public void testBinaryZeroDimensions() {
+        Buffer buffer = new Buffer().writeIntLe(Integer.MAX_VALUE).writeIntLe(0);
+        assertInvalid(Codec.BINARY, buffer);
+    }
+
+    @Test
+    public void testBinaryTruncated() {
+        // Header promises a large matrix, payload has a single row
+        Buffer buffer = new Buffer().writeIntLe(1 << 20).writeIntLe(1 << 8);
+        for (int i = 0; i < 1 << 8; i++) {
+            buffer.writeIntLe(Float.floatToIntBits(1f));
+        }
+
+        assertInvalid(Codec.BINARY, buffer);
+    }
+
+    @Test
+    public void testBase64Overflow() {
+        // 65536 x 16384 x 4 overflows int to 0, which matches an empty payload
+        Buffer buffer = new Buffer().writeUtf8("{\"rows\": 65536, \"dims\": 16384, \"data\": \"\"}");
+        assertInvalid(Codec.BASE64, buffer);
+    }
+
+    @Test
+    public void testBase64Mismatch() {
+        Buffer buffer = new Buffer().writeUtf8("{\"rows\": 2, \"dims\": 2, \"data\": \"AAAAAA==\"}");
+        assertInvalid(Codec.BASE64, buffer);
+    }
+
+    @Test
+    public void testNegotiation() throws Exception {
+        Buffer body = new Buffer();
+        Codec.BINARY.encode(VECTORS, body);
+        this.server.enqueue(new MockResponse().setHeader("Content-Type", Codec.BINARY.type()).setBody(body));
+
+        this.embeddings.setCodec(Codec.BINARY);
+        float[][] vectors = this.embeddings.vectors(Arrays.asList("a", "b"));
+
+        RecordedRequest request = this.server.takeRequest();
+        assertEquals(Codec.accept(Codec.BINARY), request.getHeader("Accept"));
+        assertArrayEquals(VECTORS[1], vectors[1], 0f);
+    }
+
+    @Test
+    public void testNegotiationFallback() throws IOException {
+        // Server without codec support answers with JSON
+        this.server.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody("[0.5, 1.5]"));
+
+        this.embeddings.setCodec(Codec.BASE64);
+        assertArrayEquals(new float[] {0.5f, 1.5f}, this.embeddings.vector("a"), 0f);
+    }
+
+    @Test
+    public void testVectorZeroRows() {
+        Buffer body = new Buffer();
+        this.server.enqueue(new MockResponse().setHeader("Content-Type", Codec.BINARY.type()).setBody(body.writeIntLe(0).writeIntLe(0)));
+        this.server.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody("[]"));
+
+        this.embeddings.setCodec(Codec.BINARY);
+        for (int i = 0; i < 2; i++) {
+            try {
+                this.embeddings.vector("a");
+                fail("Expected IOException");
+            }
+            catch (IOException ex) {
+                assertTrue(ex.getMessage(), ex.getMessage().contains("Expected 1 vectors, received 0"));
+            }
+        }
+    }
+
+    /**
+     * Asserts that decoding fails with an IOException.
+     *
+     * @param codec codec
+     * @param buffer encoded input
+     */
+    private static void assertInvalid(Codec codec, Buffer buffer) {
+        try {
+            codec.decode(buffer);
+            fail("Expected IOException");
+        }
+        catch (IOException ex) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package txtai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Deduplication tests.
+ */
+public class DeduplicationTest {
+    @Test
+    public void testDuplicates() {
+        assertFalse(Deduplication.duplicates(null));
+        assertFalse(Deduplication.duplicates(Collections.singletonList("a")));
+        assertFalse(Deduplication.duplicates(Arrays.asList("a", "b")));
+        assertTrue(Deduplication.duplicates(Arrays.asList("a", "b", "a")));
+    }
+
+    @Test
+    public void testApply() throws Exception {
+        List<List<String>> sent = new ArrayList<>();
+        List<String> outputs = Deduplication.<String, String>apply("label", Arrays.asList("a", "b", "a", "c", "b"), distinct -> {
+            sent.add(distinct);
+            return CompletableFuture.completedFuture(distinct.stream().map(String::toUpperCase).collect(Collectors.toList()));
+        }).get();
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c")), sent);
+        assertEquals(Arrays.asList("A", "B", "A", "C", "B"), outputs);
+    }
+
+    @Test
+    public void testMismatch() throws InterruptedException {
+        CompletableFuture<List<String>> result = Deduplication.apply("label", Arrays.asList("a", "a", "b"), distinct ->
+            CompletableFuture.completedFuture(Collections.singletonList("A")));
+
+        try {
+            result.get();
+            fail("Expected failure");
+        }
+        catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testCancel() {
+        CompletableFuture<List<String>> request = new CompletableFuture<>();
+        CompletableFuture<List<String>> result = Deduplication.apply("label", Arrays.asList("a", "a"), distinct -> request);
+
+        result.cancel(true);
+        assertTrue(request.isCancelled());
+    }
+}
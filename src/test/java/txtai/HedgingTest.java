@@ -0,0 +1,76 @@
+package txtai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Hedging tests.
+ */
+public class HedgingTest {
+    private MockWebServer server;
+    private Embeddings embeddings;
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = new MockWebServer();
+        this.server.start();
+
+        this.embeddings = new Embeddings(this.server.url("/").toString());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.server.shutdown();
+    }
+
+    @Test
+    public void testHedge() throws IOException {
+        // Primary stalls, backup answers right away
+        this.server.enqueue(new MockResponse().setBody("1").setHeadersDelay(5, TimeUnit.SECONDS));
+        this.server.enqueue(new MockResponse().setBody("2"));
+
+        this.embeddings.setHedging(new Hedging(95, 1.0, 50, TimeUnit.MILLISECONDS));
+
+        long start = System.nanoTime();
+        assertEquals(2, this.embeddings.count());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4));
+        assertEquals(2, this.server.getRequestCount());
+    }
+
+    @Test
+    public void testFast() throws IOException {
+        this.server.enqueue(new MockResponse().setBody("1"));
+
+        this.embeddings.setHedging(new Hedging(95, 1.0, 1, TimeUnit.SECONDS));
+
+        assertEquals(1, this.embeddings.count());
+        assertEquals(1, this.server.getRequestCount());
+    }
+
+    @Test
+    public void testBudget() throws IOException {
+        // Budget is empty, slow primary isn't hedged
+        this.server.enqueue(new MockResponse().setBody("1").setHeadersDelay(200, TimeUnit.MILLISECONDS));
+
+        this.embeddings.setHedging(new Hedging(95, 0, 10, TimeUnit.MILLISECONDS));
+
+        assertEquals(1, this.embeddings.count());
+        assertEquals(1, this.server.getRequestCount());
+    }
+
+    @Test
+    public void testDelay() {
+        Hedging hedging = new Hedging(95, 0.1, 25, TimeUnit.MILLISECONDS);
+        assertEquals(25, hedging.delay("count", TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,54 @@
+package txtai;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+/**
+ * Columnar results tests.
+ */
+public class ScoredResultsTest {
+    private final Gson gson = Transport.gson();
+
+    @Test
+    public void testSearchResults() {
+        // Numeric ids keep their JSON form, unknown fields are skipped
+        SearchResults results = this.gson.fromJson("[{\"id\": \"a\", \"score\": 0.9, \"text\": \"x\"}, {\"id\": 7, \"score\": 0.5}]",
+                                                   SearchResults.class);
+
+        assertArrayEquals(new String[] {"a", "7"}, results.ids());
+        assertArrayEquals(new double[] {0.9, 0.5}, results.scores(), 0);
+        assertEquals("7", results.list().get(1).id);
+        assertEquals("[a=0.9, 7=0.5]", results.toString());
+
+        assertEquals(this.gson.toJson(results), this.gson.toJson(this.gson.fromJson(this.gson.toJson(results), SearchResults.class)));
+    }
+
+    @Test
+    public void testIndexResults() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 40; i++) {
+            json.append(i > 0 ? "," : "").append("{\"id\": ").append(i).append(", \"score\": ").append(1.0 / (i + 1)).append('}');
+        }
+
+        // More hits than the initial column capacity
+        IndexResults results = this.gson.fromJson(json.append(']').toString(), IndexResults.class);
+        assertEquals(40, results.size());
+        assertEquals(39, results.id(39));
+        assertEquals(0.5, results.list().get(1).score, 0);
+    }
+
+    @Test
+    public void testNull() {
+        assertNull(this.gson.fromJson("null", SearchResults.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLength() {
+        new IndexResults(new int[2], new double[1]);
+    }
+}
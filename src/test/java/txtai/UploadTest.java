@@ -0,0 +1,130 @@
+package txtai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Streaming upload tests.
+ */
+public class UploadTest {
+    private MockWebServer server;
+    private Embeddings embeddings;
+
+    /**
+     * Input stream that records when it's closed.
+     */
+    private static class Stream extends ByteArrayInputStream {
+        boolean closed;
+
+        Stream(String data) {
+            super(data.getBytes());
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.closed = true;
+            super.close();
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = new MockWebServer();
+        this.server.start();
+
+        this.embeddings = new Embeddings(this.server.url("/").toString());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.server.shutdown();
+    }
+
+    @Test
+    public void testPath() throws Exception {
+        Path path = Files.createTempFile("txtai", ".bin");
+        try {
+            Files.write(path, new byte[] {1, 2, 3, 4});
+            this.server.enqueue(new MockResponse());
+
+            this.embeddings.addobject(new Path[] {path}, null, null);
+
+            RecordedRequest request = this.server.takeRequest();
+            assertEquals("/addobject", request.getPath());
+            assertTrue(request.getBody().readUtf8().contains("\u0001\u0002\u0003\u0004"));
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testStreamsClosed() throws IOException {
+        Stream[] streams = {new Stream("a"), new Stream("b")};
+        this.server.enqueue(new MockResponse());
+
+        this.embeddings.addobject(streams, null, null);
+        assertClosed(streams);
+    }
+
+    @Test
+    public void testStreamsClosedOnFailure() {
+        // First chunk fails, second stream is never sent
+        Stream[] streams = {new Stream("a"), new Stream("b")};
+        this.server.enqueue(new MockResponse().setResponseCode(500));
+
+        this.embeddings.setUploads(new ByteBatching(1, 1, 1));
+        try {
+            this.embeddings.addobject(streams, null, null);
+            fail("Expected IOException");
+        }
+        catch (IOException ex) {
+            // Expected
+        }
+
+        assertEquals(1, this.server.getRequestCount());
+        assertClosed(streams);
+    }
+
+    @Test
+    public void testStreamsClosedOnInvalidArguments() {
+        Stream[] streams = {new Stream("a"), new Stream("b")};
+
+        this.embeddings.setUploads(new ByteBatching(1, 1, 1));
+        try {
+            this.embeddings.addimageAsync(streams, Arrays.asList("1"), null);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException ex) {
+            // Expected
+        }
+
+        assertClosed(streams);
+    }
+
+    /**
+     * Asserts that all streams are closed.
+     *
+     * @param streams streams
+     */
+    private static void assertClosed(Stream[] streams) {
+        for (Stream stream : streams) {
+            assertTrue(stream.closed);
+        }
+    }
+}